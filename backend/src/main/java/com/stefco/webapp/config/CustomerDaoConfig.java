@@ -0,0 +1,58 @@
+package com.stefco.webapp.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stefco.webapp.dao.CachingCustomerDao;
+import com.stefco.webapp.dao.CoalescingCustomerDao;
+import com.stefco.webapp.dao.CustomerDao;
+import com.stefco.webapp.dao.GroupCommitCustomerDao;
+import com.stefco.webapp.model.Customer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+@EnableConfigurationProperties({CustomerDaoProperties.class, CustomerCacheProperties.class})
+public class CustomerDaoConfig {
+
+    // the DAO the service layer talks to; the "jdbc" and "jpa" beans stay available by qualifier
+    @Bean
+    @Primary
+    CustomerDao customerDao(@Qualifier("jdbc") CustomerDao jdbcCustomerDao,
+                            @Qualifier("jpa") CustomerDao jpaCustomerDao,
+                            CustomerDaoProperties daoProperties,
+                            CustomerCacheProperties cacheProperties,
+                            MeterRegistry meterRegistry) {
+        CustomerDao customerDao = switch (daoProperties.implementation()) {
+            case "jdbc" -> jdbcCustomerDao;
+            case "jpa" -> jpaCustomerDao;
+            default -> throw new IllegalStateException(String.format(
+                    "customer.dao.implementation must be jdbc or jpa but was [%s]", daoProperties.implementation()));
+        };
+        CustomerDaoProperties.GroupCommit groupCommit = daoProperties.groupCommit();
+        if (groupCommit.enabled()) {
+            customerDao = new GroupCommitCustomerDao(
+                    customerDao, groupCommit.maxBatchSize(), groupCommit.maxDelay(), meterRegistry);
+        }
+        if (daoProperties.coalesceReads()) {
+            // below the cache, which already collapses its own misses, so only cache misses and the
+            // reads it does not cache get here
+            customerDao = new CoalescingCustomerDao(customerDao, meterRegistry);
+        }
+        if (!cacheProperties.enabled()) {
+            return customerDao;
+        }
+        // Caffeine evicts with W-TinyLFU once maximumSize is reached
+        AsyncCache<Long, Customer> cache = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.maximumSize())
+                .expireAfterWrite(cacheProperties.ttl())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "customers");
+        return new CachingCustomerDao(customerDao, cache);
+    }
+}
@@ -0,0 +1,30 @@
+package com.stefco.webapp.config;
+
+import com.stefco.webapp.dao.CustomerDao;
+import com.stefco.webapp.dao.TimedCustomerDao;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import java.util.Set;
+
+// Wraps the "jdbc" and "jpa" DAO beans in a TimedCustomerDao tagged with the bean name, so every consumer,
+// including the cache in front of them, goes through the timer. Cache hits therefore never show up as DAO calls.
+public class CustomerDaoMetricsPostProcessor implements BeanPostProcessor {
+
+    private static final Set<String> IMPLEMENTATIONS = Set.of("jdbc", "jpa");
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public CustomerDaoMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof CustomerDao customerDao && IMPLEMENTATIONS.contains(beanName)) {
+            return new TimedCustomerDao(customerDao, beanName, meterRegistry.getObject());
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,23 @@
+package com.stefco.webapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// implementation is the bean name of the CustomerDao behind the primary one: jdbc or jpa;
+// coalesceReads lets concurrent identical point reads share one query;
+// groupCommit writes concurrent single-customer inserts as one batch
+@ConfigurationProperties("customer.dao")
+public record CustomerDaoProperties(
+        @DefaultValue("jdbc") String implementation,
+        @DefaultValue("true") boolean coalesceReads,
+        @DefaultValue GroupCommit groupCommit) {
+
+    // a batch is written once it has maxBatchSize rows or its first row has waited maxDelay
+    public record GroupCommit(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("100") int maxBatchSize,
+            @DefaultValue("1ms") Duration maxDelay) {
+    }
+}
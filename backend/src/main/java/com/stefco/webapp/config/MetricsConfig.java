@@ -0,0 +1,16 @@
+package com.stefco.webapp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // static so the post processor does not pull this configuration in before the beans it wraps
+    @Bean
+    static CustomerDaoMetricsPostProcessor customerDaoMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new CustomerDaoMetricsPostProcessor(meterRegistry);
+    }
+}
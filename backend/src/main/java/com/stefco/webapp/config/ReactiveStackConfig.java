@@ -0,0 +1,30 @@
+package com.stefco.webapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+// The reactive profile serves the API from Netty over R2DBC.
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveStackConfig {
+
+    // Boot drops its DataSource once an R2DBC ConnectionFactory exists, Flyway and the JPA beans still need one
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource jdbcDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Tomcat is on the classpath for the servlet stack and would otherwise be picked for WebFlux too
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,78 @@
+package com.stefco.webapp.config;
+
+import com.stefco.webapp.datasource.ReadYourWritesFilter;
+import com.stefco.webapp.datasource.ReplicaLagMonitor;
+import com.stefco.webapp.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Only active when customer.datasource.replica-urls is set, otherwise Boot's single DataSource is used.
+@Configuration
+@ConditionalOnProperty(prefix = "customer.datasource", name = "replica-urls")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // closing the routing DataSource closes the replica pools, the primary is a bean of its own
+    @Bean
+    ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                      DataSourceProperties dataSourceProperties,
+                                                      ReplicaDataSourceProperties replicaProperties,
+                                                      MeterRegistry meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<String> urls = replicaProperties.replicaUrls();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i))
+                    .build();
+            replica.setPoolName("replica-" + i);
+            replica.setReadOnly(true);
+            // the replica pools are not beans, so Boot does not bind their hikaricp.* metrics for us
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas);
+    }
+
+    // the proxy delays fetching a connection until the first statement, when the transaction is set up
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    ReplicaLagMonitor replicaLagMonitor(ReplicaRoutingDataSource replicaRoutingDataSource,
+                                        ReplicaDataSourceProperties replicaProperties,
+                                        MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(replicaRoutingDataSource,
+                replicaProperties.maxReplicaLag(),
+                replicaProperties.lagCheckInterval(),
+                meterRegistry);
+    }
+
+    @Bean
+    ReadYourWritesFilter readYourWritesFilter(ReplicaDataSourceProperties replicaProperties) {
+        return new ReadYourWritesFilter(replicaProperties.readYourWritesStickiness());
+    }
+}
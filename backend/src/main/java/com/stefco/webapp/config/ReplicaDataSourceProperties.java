@@ -0,0 +1,16 @@
+package com.stefco.webapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+// replicas share the credentials of spring.datasource
+@ConfigurationProperties("customer.datasource")
+public record ReplicaDataSourceProperties(
+        @DefaultValue List<String> replicaUrls,
+        @DefaultValue("10s") Duration maxReplicaLag,
+        @DefaultValue("5s") Duration lagCheckInterval,
+        @DefaultValue("5s") Duration readYourWritesStickiness) {
+}
@@ -1,29 +1,128 @@
 package com.stefco.webapp.controller;
 
+import com.stefco.webapp.dto.CustomerBatchResult;
 import com.stefco.webapp.dto.CustomerDto;
+import com.stefco.webapp.dto.CustomerImportReport;
+import com.stefco.webapp.dto.CustomerLookup;
+import com.stefco.webapp.dto.CustomerPage;
+import com.stefco.webapp.dto.CustomerQueryPage;
+import com.stefco.webapp.dto.CustomerSearchPage;
+import com.stefco.webapp.dto.CustomerStatistics;
 import com.stefco.webapp.model.Customer;
+import com.stefco.webapp.service.CustomerDataFormat;
+import com.stefco.webapp.service.CustomerETags;
+import com.stefco.webapp.service.CustomerExporter;
+import com.stefco.webapp.service.CustomerImporter;
 import com.stefco.webapp.service.CustomerService;
+import com.stefco.webapp.service.CustomerStatisticsService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("api/v1/customers")
 public class CustomerController {
     private final CustomerService customerService;
+    private final CustomerExporter customerExporter;
+    private final CustomerImporter customerImporter;
+    private final CustomerStatisticsService customerStatisticsService;
 
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService,
+                              CustomerExporter customerExporter,
+                              CustomerImporter customerImporter,
+                              CustomerStatisticsService customerStatisticsService) {
         this.customerService = customerService;
+        this.customerExporter = customerExporter;
+        this.customerImporter = customerImporter;
+        this.customerStatisticsService = customerStatisticsService;
     }
 
+    // a poll with a current ETag is answered with 304 from ids and versions, without loading the page
     @GetMapping()
-    public List<Customer> getCustomers() {
-        return customerService.getAllCustomers();
+    public CustomerPage getCustomers(@RequestParam(value = "cursor", required = false) Long cursor,
+                                     @RequestParam(value = "limit", required = false) Integer limit,
+                                     WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(customerService.getCustomersETag(cursor, limit))) {
+            return null;
+        }
+        CustomerPage page = customerService.getCustomers(cursor, limit);
+        request.checkNotModified(CustomerETags.of(page));
+        return page;
+    }
+
+    // one query for many customers; POST lookup takes the same ids when they do not fit in a URL
+    @GetMapping(params = "ids")
+    public CustomerLookup getCustomersByIds(@RequestParam("ids") List<Long> ids) {
+        return customerService.getCustomersByIds(ids);
+    }
+
+    @PostMapping("lookup")
+    public CustomerLookup lookupCustomers(@RequestBody List<Long> ids) {
+        return customerService.getCustomersByIds(ids);
+    }
+
+    // filtered listing, sort=id|name|age and order=asc|desc; pass nextCursor back with the same filters and sort
+    @GetMapping("query")
+    public CustomerQueryPage queryCustomers(@RequestParam(value = "minAge", required = false) Integer minAge,
+                                            @RequestParam(value = "maxAge", required = false) Integer maxAge,
+                                            @RequestParam(value = "email", required = false) String email,
+                                            @RequestParam(value = "namePrefix", required = false) String namePrefix,
+                                            @RequestParam(value = "sort", required = false) String sort,
+                                            @RequestParam(value = "order", required = false) String order,
+                                            @RequestParam(value = "cursor", required = false) String cursor,
+                                            @RequestParam(value = "limit", required = false) Integer limit) {
+        return customerService.queryCustomers(minAge, maxAge, email, namePrefix, sort, order, cursor, limit);
+    }
+
+    // partial and misspelled names or emails, best match first; pass nextCursor back for the next page
+    @GetMapping("search")
+    public CustomerSearchPage searchCustomers(@RequestParam("q") String query,
+                                              @RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "limit", required = false) Integer limit) {
+        return customerService.searchCustomers(query, cursor, limit);
+    }
+
+    // served from trigger-maintained summaries; period=day|week|month, from and to are ISO dates
+    @GetMapping("statistics")
+    public CustomerStatistics getStatistics(@RequestParam(value = "period", required = false) String period,
+                                            @RequestParam(value = "from", required = false)
+                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                            @RequestParam(value = "to", required = false)
+                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return customerStatisticsService.getStatistics(period, from, to);
+    }
+
+    @GetMapping("export")
+    public void exportCustomers(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                HttpServletResponse response) throws IOException {
+        CustomerDataFormat dataFormat = CustomerDataFormat.fromName(format);
+        response.setContentType(dataFormat.getMediaType().toString());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=customers." + dataFormat.getExtension());
+        customerExporter.export(dataFormat, response.getOutputStream());
     }
 
     @GetMapping("{customerId}")
-    public Customer getCustomer(@PathVariable("customerId") Long customerId) {
-        return customerService.getCustomer(customerId);
+    public Customer getCustomer(@PathVariable("customerId") Long customerId, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(String.valueOf(customerService.getCustomerVersion(customerId)))) {
+            return null;
+        }
+        Customer customer = customerService.getCustomer(customerId);
+        request.checkNotModified(CustomerETags.of(customer));
+        return customer;
     }
 
 
@@ -32,13 +131,35 @@ public class CustomerController {
         customerService.addCustomer(customerDto);
     };
 
+    @PostMapping("batch")
+    public List<CustomerBatchResult> saveCustomers(@RequestBody List<CustomerDto> customerDtos) {
+        return customerService.addCustomers(customerDtos);
+    }
+
+    @PostMapping(value = "import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public CustomerImportReport importCustomers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                InputStream body) throws IOException {
+        return customerImporter.importCustomers(CustomerDataFormat.fromMediaType(contentType), body);
+    }
+
     @DeleteMapping("{customerId}")
     public void deleteCustomer(@PathVariable("customerId") Long id) {
         customerService.deleteCustomer(id);
     };
 
+    // returns the ids that were actually removed
+    @DeleteMapping()
+    public List<Long> deleteCustomers(@RequestParam("ids") List<Long> ids) {
+        return customerService.deleteCustomers(ids);
+    }
+
+    // If-Match makes the update conditional on the version it names, 412 when the customer has moved on;
+    // the response carries the new ETag
     @PutMapping("{customerId}")
-    public void updateCustomer(@PathVariable("customerId") Long customerId,@RequestBody CustomerDto customerDto) {
-        customerService.updateCustomer(customerId,customerDto);
-    };
+    public ResponseEntity<Void> updateCustomer(@PathVariable("customerId") Long customerId,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                               @RequestBody CustomerDto customerDto) {
+        Customer updated = customerService.updateCustomer(customerId, customerDto, CustomerETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(CustomerETags.of(updated)).build();
+    }
 }
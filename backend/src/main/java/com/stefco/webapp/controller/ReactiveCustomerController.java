@@ -0,0 +1,81 @@
+package com.stefco.webapp.controller;
+
+import com.stefco.webapp.dto.CustomerDto;
+import com.stefco.webapp.dto.CustomerPage;
+import com.stefco.webapp.model.Customer;
+import com.stefco.webapp.service.CustomerETags;
+import com.stefco.webapp.service.ReactiveCustomerService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Serves the api/v1/customers contract of CustomerController on WebFlux when the reactive profile is active.
+@RestController
+@Profile("reactive")
+@RequestMapping("api/v1/customers")
+public class ReactiveCustomerController {
+    private final ReactiveCustomerService customerService;
+
+    public ReactiveCustomerController(ReactiveCustomerService customerService) {
+        this.customerService = customerService;
+    }
+
+    // same conditional GET as CustomerController: a current If-None-Match is answered with 304 from ids
+    // and versions, without loading the page
+    @GetMapping()
+    public Mono<CustomerPage> getCustomers(@RequestParam(value = "cursor", required = false) Long cursor,
+                                           @RequestParam(value = "limit", required = false) Integer limit,
+                                           ServerWebExchange exchange) {
+        Mono<CustomerPage> page = Mono.defer(() -> customerService.getCustomers(cursor, limit))
+                .filter(loaded -> !exchange.checkNotModified(CustomerETags.of(loaded)));
+        if (!hasIfNoneMatch(exchange)) {
+            return page;
+        }
+        return customerService.getCustomersETag(cursor, limit)
+                .flatMap(etag -> exchange.checkNotModified(etag) ? Mono.empty() : page);
+    }
+
+    // the whole table, written out as the client reads it
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Customer> streamCustomers() {
+        return customerService.streamCustomers();
+    }
+
+    @GetMapping("{customerId}")
+    public Mono<Customer> getCustomer(@PathVariable("customerId") Long customerId, ServerWebExchange exchange) {
+        Mono<Customer> customer = Mono.defer(() -> customerService.getCustomer(customerId))
+                .filter(loaded -> !exchange.checkNotModified(CustomerETags.of(loaded)));
+        if (!hasIfNoneMatch(exchange)) {
+            return customer;
+        }
+        return customerService.getCustomerVersion(customerId)
+                .flatMap(version -> exchange.checkNotModified(String.valueOf(version)) ? Mono.empty() : customer);
+    }
+
+    @PostMapping()
+    public Mono<Void> saveCustomer(@RequestBody CustomerDto customerDto) {
+        return customerService.addCustomer(customerDto);
+    }
+
+    @DeleteMapping("{customerId}")
+    public Mono<Void> deleteCustomer(@PathVariable("customerId") Long id) {
+        return customerService.deleteCustomer(id);
+    }
+
+    @PutMapping("{customerId}")
+    public Mono<ResponseEntity<Void>> updateCustomer(@PathVariable("customerId") Long customerId,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                     @RequestBody CustomerDto customerDto) {
+        return customerService.updateCustomer(customerId, customerDto, CustomerETags.expectedVersion(ifMatch))
+                .map(updated -> ResponseEntity.ok().eTag(CustomerETags.of(updated)).build());
+    }
+
+    private static boolean hasIfNoneMatch(ServerWebExchange exchange) {
+        return exchange.getRequest().getHeaders().containsKey(HttpHeaders.IF_NONE_MATCH);
+    }
+}
@@ -0,0 +1,230 @@
+package com.stefco.webapp.dao;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.stefco.webapp.datasource.ReadYourWrites;
+import com.stefco.webapp.model.Customer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+// Read-through cache for selectCustomerById and selectCustomersByIds in front of any CustomerDao.
+// Only customers that exist are cached, and every write evicts the ids it touches.
+// Misses are loaded from the primary: a row read from a lagging replica would be served for the whole TTL,
+// and to every caller waiting on the load, not just to the one whose request may read stale data.
+public class CachingCustomerDao implements CustomerDao {
+
+    private final CustomerDao delegate;
+    private final AsyncCache<Long, Customer> cache;
+
+    public CachingCustomerDao(CustomerDao delegate, AsyncCache<Long, Customer> cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long id) {
+        CompletableFuture<Customer> customer = cache.getIfPresent(id);
+        if (customer == null) {
+            // the load runs outside any map lock, a slow query must not block writes to other keys in its bin;
+            // an invalidate racing with it removes the pending future, so the stale result is never cached
+            CompletableFuture<Customer> loading = new CompletableFuture<>();
+            customer = cache.asMap().putIfAbsent(id, loading);
+            if (customer == null) {
+                customer = loading;
+                load(id, loading);
+            }
+        }
+        return Optional.ofNullable(join(customer)).map(CachingCustomerDao::copy);
+    }
+
+    // hits come from the cache and every miss is loaded by a single delegate call
+    @Override
+    public List<Customer> selectCustomersByIds(Collection<Long> ids) {
+        Map<Long, CompletableFuture<Customer>> customers = new LinkedHashMap<>();
+        Map<Long, CompletableFuture<Customer>> loading = new HashMap<>();
+        for (Long id : ids) {
+            if (customers.containsKey(id)) {
+                continue;
+            }
+            CompletableFuture<Customer> customer = cache.getIfPresent(id);
+            if (customer == null) {
+                // registered before the load for the same reason as in selectCustomerById
+                CompletableFuture<Customer> pending = new CompletableFuture<>();
+                customer = cache.asMap().putIfAbsent(id, pending);
+                if (customer == null) {
+                    customer = pending;
+                    loading.put(id, pending);
+                }
+            }
+            customers.put(id, customer);
+        }
+        if (!loading.isEmpty()) {
+            loadAll(loading);
+        }
+
+        List<Customer> found = new ArrayList<>(customers.size());
+        for (CompletableFuture<Customer> customer : customers.values()) {
+            Customer cached = join(customer);
+            if (cached != null) {
+                found.add(copy(cached));
+            }
+        }
+        return found;
+    }
+
+    // answered from a cached customer when there is one, otherwise only the version is read
+    @Override
+    public Optional<Long> selectCustomerVersion(Long id) {
+        CompletableFuture<Customer> customer = cache.getIfPresent(id);
+        if (customer != null && customer.isDone() && !customer.isCompletedExceptionally()) {
+            Customer cached = customer.join();
+            if (cached != null) {
+                return Optional.of(cached.getVersion());
+            }
+        }
+        return delegate.selectCustomerVersion(id);
+    }
+
+    @Override
+    public List<CustomerVersion> selectCustomerVersions(Long afterId, int limit) {
+        return delegate.selectCustomerVersions(afterId, limit);
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return delegate.selectAllCustomers();
+    }
+
+    @Override
+    public List<Customer> selectCustomers(Long afterId, int limit) {
+        return delegate.selectCustomers(afterId, limit);
+    }
+
+    @Override
+    public List<Customer> selectCustomers(CustomerQuery query, Customer after, int limit) {
+        return delegate.selectCustomers(query, after, limit);
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> action) {
+        delegate.forEachCustomer(action);
+    }
+
+    // ranked lists are not cached, only the customers looked up by id
+    @Override
+    public List<CustomerMatch> searchCustomers(String term, Float afterScore, Long afterId, int limit) {
+        return delegate.searchCustomers(term, afterScore, afterId, limit);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        delegate.insertCustomer(customer);
+        if (customer.getId() != null) {
+            cache.synchronous().invalidate(customer.getId());
+        }
+    }
+
+    @Override
+    public Optional<Long> insertCustomerIfEmailAbsent(Customer customer) {
+        Optional<Long> id = delegate.insertCustomerIfEmailAbsent(customer);
+        id.ifPresent(cache.synchronous()::invalidate);
+        return id;
+    }
+
+    @Override
+    public List<Boolean> insertCustomers(List<Customer> customers) {
+        return delegate.insertCustomers(customers);
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return delegate.existsPersonWithEmail(email);
+    }
+
+    @Override
+    public boolean existsCustomerWithId(Long id) {
+        return delegate.existsCustomerWithId(id);
+    }
+
+    @Override
+    public Optional<Customer> deleteCustomerWithId(Long id) {
+        try {
+            return delegate.deleteCustomerWithId(id);
+        } finally {
+            cache.synchronous().invalidate(id);
+        }
+    }
+
+    @Override
+    public List<Customer> deleteCustomersWithIds(Collection<Long> ids) {
+        try {
+            return delegate.deleteCustomersWithIds(ids);
+        } finally {
+            cache.synchronous().invalidateAll(ids);
+        }
+    }
+
+    @Override
+    public void updateCustomer(Customer update) {
+        try {
+            delegate.updateCustomer(update);
+        } finally {
+            cache.synchronous().invalidate(update.getId());
+        }
+    }
+
+    @Override
+    public CustomerUpdateResult updateCustomerFields(Long id, String name, String email, Integer age, Long expectedVersion) {
+        try {
+            return delegate.updateCustomerFields(id, name, email, age, expectedVersion);
+        } finally {
+            cache.synchronous().invalidate(id);
+        }
+    }
+
+    // a null or failed result removes the entry again
+    private void load(Long id, CompletableFuture<Customer> loading) {
+        try {
+            loading.complete(ReadYourWrites.onPrimary(() -> delegate.selectCustomerById(id)).orElse(null));
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+        }
+    }
+
+    private void loadAll(Map<Long, CompletableFuture<Customer>> loading) {
+        try {
+            Map<Long, Customer> loaded = new HashMap<>();
+            for (Customer customer : ReadYourWrites.onPrimary(() -> delegate.selectCustomersByIds(loading.keySet()))) {
+                loaded.put(customer.getId(), customer);
+            }
+            loading.forEach((id, future) -> future.complete(loaded.get(id)));
+        } catch (RuntimeException e) {
+            loading.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private static Customer join(CompletableFuture<Customer> customer) {
+        try {
+            return customer.join();
+        } catch (CompletionException e) {
+            // surface the load's own exception, not the wrapper
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // callers are free to mutate what they get back, the cached instance must stay untouched
+    static Customer copy(Customer customer) {
+        return new Customer(customer.getId(), customer.getName(), customer.getEmail(), customer.getAge(), customer.getVersion());
+    }
+}
@@ -0,0 +1,245 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.datasource.ReadYourWrites;
+import com.stefco.webapp.model.Customer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+// Single-flight for point reads in front of any CustomerDao: while a read for a key is running,
+// identical reads wait for its result instead of issuing their own. Nothing outlives the call, the
+// entry is removed as soon as the read returns, so this flattens bursts without caching anything.
+// Calls made inside a transaction go straight through, they must read on the transaction's connection.
+// A read pinned to the primary never joins one that may be answered by a replica, and every write drops the
+// in-flight reads of what it touched, so a read issued after the write returns cannot get a pre-write result.
+public class CoalescingCustomerDao implements CustomerDao {
+
+    static final String METRIC_NAME = "customer.dao.coalesced";
+    private static final String SELECT_CUSTOMER_BY_ID = "selectCustomerById";
+    private static final String SELECT_CUSTOMER_VERSION = "selectCustomerVersion";
+    private static final String EXISTS_PERSON_WITH_EMAIL = "existsPersonWithEmail";
+    private static final String EXISTS_CUSTOMER_WITH_ID = "existsCustomerWithId";
+
+    private final CustomerDao delegate;
+    private final MeterRegistry meterRegistry;
+    private final Map<Call, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public CoalescingCustomerDao(CustomerDao delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long id) {
+        // followers get their own copy, the leader's caller may mutate what it got
+        return coalesce(SELECT_CUSTOMER_BY_ID, id, () -> delegate.selectCustomerById(id),
+                customer -> customer.map(CachingCustomerDao::copy));
+    }
+
+    @Override
+    public Optional<Long> selectCustomerVersion(Long id) {
+        return coalesce(SELECT_CUSTOMER_VERSION, id, () -> delegate.selectCustomerVersion(id), UnaryOperator.identity());
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return coalesce(EXISTS_PERSON_WITH_EMAIL, email, () -> delegate.existsPersonWithEmail(email), UnaryOperator.identity());
+    }
+
+    @Override
+    public boolean existsCustomerWithId(Long id) {
+        return coalesce(EXISTS_CUSTOMER_WITH_ID, id, () -> delegate.existsCustomerWithId(id), UnaryOperator.identity());
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return delegate.selectAllCustomers();
+    }
+
+    @Override
+    public List<Customer> selectCustomers(Long afterId, int limit) {
+        return delegate.selectCustomers(afterId, limit);
+    }
+
+    @Override
+    public List<Customer> selectCustomers(CustomerQuery query, Customer after, int limit) {
+        return delegate.selectCustomers(query, after, limit);
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> action) {
+        delegate.forEachCustomer(action);
+    }
+
+    @Override
+    public List<Customer> selectCustomersByIds(Collection<Long> ids) {
+        return delegate.selectCustomersByIds(ids);
+    }
+
+    @Override
+    public List<CustomerVersion> selectCustomerVersions(Long afterId, int limit) {
+        return delegate.selectCustomerVersions(afterId, limit);
+    }
+
+    @Override
+    public List<CustomerMatch> searchCustomers(String term, Float afterScore, Long afterId, int limit) {
+        return delegate.searchCustomers(term, afterScore, afterId, limit);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        try {
+            delegate.insertCustomer(customer);
+        } finally {
+            forget(customer);
+        }
+    }
+
+    @Override
+    public Optional<Long> insertCustomerIfEmailAbsent(Customer customer) {
+        try {
+            return delegate.insertCustomerIfEmailAbsent(customer);
+        } finally {
+            forget(customer);
+        }
+    }
+
+    @Override
+    public List<Boolean> insertCustomers(List<Customer> customers) {
+        try {
+            return delegate.insertCustomers(customers);
+        } finally {
+            customers.forEach(this::forget);
+        }
+    }
+
+    @Override
+    public Optional<Customer> deleteCustomerWithId(Long id) {
+        Optional<Customer> deleted = Optional.empty();
+        try {
+            deleted = delegate.deleteCustomerWithId(id);
+            return deleted;
+        } finally {
+            forgetId(id);
+            deleted.ifPresent(this::forget);
+        }
+    }
+
+    @Override
+    public List<Customer> deleteCustomersWithIds(Collection<Long> ids) {
+        List<Customer> deleted = List.of();
+        try {
+            deleted = delegate.deleteCustomersWithIds(ids);
+            return deleted;
+        } finally {
+            ids.forEach(this::forgetId);
+            deleted.forEach(this::forget);
+        }
+    }
+
+    @Override
+    public void updateCustomer(Customer update) {
+        try {
+            delegate.updateCustomer(update);
+        } finally {
+            forgetId(update.getId());
+            // the email it replaced is not known here
+            forgetAll(EXISTS_PERSON_WITH_EMAIL);
+        }
+    }
+
+    @Override
+    public CustomerUpdateResult updateCustomerFields(Long id, String name, String email, Integer age, Long expectedVersion) {
+        try {
+            return delegate.updateCustomerFields(id, name, email, age, expectedVersion);
+        } finally {
+            forgetId(id);
+            if (email != null) {
+                forgetAll(EXISTS_PERSON_WITH_EMAIL);
+            }
+        }
+    }
+
+    private void forget(Customer customer) {
+        if (customer.getId() != null) {
+            forgetId(customer.getId());
+        }
+        forget(EXISTS_PERSON_WITH_EMAIL, customer.getEmail());
+    }
+
+    private void forgetId(Long id) {
+        forget(SELECT_CUSTOMER_BY_ID, id);
+        forget(SELECT_CUSTOMER_VERSION, id);
+        forget(EXISTS_CUSTOMER_WITH_ID, id);
+    }
+
+    // a leader already running still answers the callers that joined it, later reads start their own call
+    private void forget(String method, Object argument) {
+        inFlight.remove(new Call(method, argument, true));
+        inFlight.remove(new Call(method, argument, false));
+    }
+
+    private void forgetAll(String method) {
+        inFlight.keySet().removeIf(call -> call.method().equals(method));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T coalesce(String method, Object argument, Supplier<T> read, UnaryOperator<T> share) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return read.get();
+        }
+        Call call = new Call(method, argument, ReadYourWrites.isPinnedToPrimary());
+        CompletableFuture<Object> leader = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(call, leader);
+        if (running != null) {
+            counter(method).increment();
+            return share.apply((T) join(running));
+        }
+        try {
+            T result = read.get();
+            leader.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            leader.completeExceptionally(e);
+            throw e;
+        } finally {
+            // a read arriving from now on starts its own call and sees anything written meanwhile
+            inFlight.remove(call, leader);
+        }
+    }
+
+    private static Object join(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            // surface the leader's own exception, not the wrapper
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Counter counter(String method) {
+        return counters.computeIfAbsent(method, key -> Counter.builder(METRIC_NAME)
+                .description("CustomerDao reads answered by an identical read already in flight")
+                .tag("method", method)
+                .register(meterRegistry));
+    }
+
+    // primary: whether the read is pinned to the primary or may be routed to a replica
+    private record Call(String method, Object argument, boolean primary) {
+    }
+}
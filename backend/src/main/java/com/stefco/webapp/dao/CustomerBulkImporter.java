@@ -0,0 +1,126 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.model.Customer;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+
+/**
+ * Loads customers through PostgreSQL COPY into a temporary staging table and
+ * merges them into {@code customer} with a single INSERT ... ON CONFLICT.
+ */
+@Repository
+public class CustomerBulkImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerBulkImporter.class);
+
+    // bytes buffered before they are handed to the COPY stream
+    static final int COPY_CHUNK_SIZE = 256 * 1024;
+    static final long PROGRESS_INTERVAL = 100_000;
+
+    public record CopyResult(long copied, long inserted) {
+        public long duplicates() {
+            return copied - inserted;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CustomerBulkImporter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public CopyResult importCustomers(Iterator<Customer> customers) {
+        return jdbcTemplate.execute((ConnectionCallback<CopyResult>) con -> {
+            execute(con, """
+                    DROP TABLE IF EXISTS customer_import;
+                    CREATE TEMP TABLE customer_import (
+                        seq BIGINT NOT NULL,
+                        name TEXT NOT NULL,
+                        email TEXT NOT NULL,
+                        age INT NOT NULL
+                    )
+                    """);
+
+            long copied = copy(con, customers);
+
+            // the first row for an email wins, both within the file and against existing customers
+            String merge = """
+                    INSERT INTO customer(name, email, age)
+                    SELECT DISTINCT ON (email) name, email, age
+                    FROM customer_import
+                    ORDER BY email, seq
+                    ON CONFLICT (email) DO NOTHING
+                    """;
+            long inserted;
+            try (Statement statement = con.createStatement()) {
+                inserted = statement.executeLargeUpdate(merge);
+            }
+            execute(con, "DROP TABLE customer_import");
+
+            log.info("Customer import finished: {} rows staged, {} inserted", copied, inserted);
+            return new CopyResult(copied, inserted);
+        });
+    }
+
+    private long copy(Connection con, Iterator<Customer> customers) throws SQLException {
+        CopyIn copyIn = con.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("COPY customer_import (seq, name, email, age) FROM STDIN WITH (FORMAT csv)");
+        long copied = 0;
+        try {
+            StringBuilder chunk = new StringBuilder(COPY_CHUNK_SIZE + 1024);
+            while (customers.hasNext()) {
+                Customer customer = customers.next();
+                chunk.append(copied).append(',')
+                        .append(quote(customer.getName())).append(',')
+                        .append(quote(customer.getEmail())).append(',')
+                        .append(customer.getAge()).append('\n');
+                copied++;
+                if (chunk.length() >= COPY_CHUNK_SIZE) {
+                    writeChunk(copyIn, chunk);
+                }
+                if (copied % PROGRESS_INTERVAL == 0) {
+                    log.info("Customer import progress: {} rows staged", copied);
+                }
+            }
+            writeChunk(copyIn, chunk);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+        return copied;
+    }
+
+    private static void writeChunk(CopyIn copyIn, StringBuilder chunk) throws SQLException {
+        if (chunk.length() == 0) {
+            return;
+        }
+        byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void execute(Connection con, String sql) throws SQLException {
+        try (Statement statement = con.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
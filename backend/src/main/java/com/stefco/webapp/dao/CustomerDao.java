@@ -2,19 +2,43 @@ package com.stefco.webapp.dao;
 
 import com.stefco.webapp.model.Customer;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 
 public interface CustomerDao {
 
     List<Customer> selectAllCustomers();
+    List<Customer> selectCustomers(Long afterId, int limit);
+    // the customers matching query in its order; a null after starts from the top, otherwise the page
+    // after that customer, of which only the id and the sort column are read
+    List<Customer> selectCustomers(CustomerQuery query, Customer after, int limit);
+    void forEachCustomer(Consumer<Customer> action);
     Optional<Customer> selectCustomerById(Long id);
+    // the customers among ids, in no particular order, in one query
+    List<Customer> selectCustomersByIds(Collection<Long> ids);
+    // only the version, empty if there is no customer with that id
+    Optional<Long> selectCustomerVersion(Long id);
+    // the versions of the rows selectCustomers would return
+    List<CustomerVersion> selectCustomerVersions(Long afterId, int limit);
+    // customers whose name or email resembles term, best match first, then by id;
+    // a null afterScore starts from the top, otherwise the page after (afterScore, afterId)
+    List<CustomerMatch> searchCustomers(String term, Float afterScore, Long afterId, int limit);
     void insertCustomer(Customer customer);
+    // id of the new customer, empty if the email was already taken
+    Optional<Long> insertCustomerIfEmailAbsent(Customer customer);
+    // one entry per customer: true if inserted, false if the email was already taken
+    List<Boolean> insertCustomers(List<Customer> customers);
     boolean existsPersonWithEmail(String email);
     boolean existsCustomerWithId(Long id);
-    void deleteCustomerWithId(Long id);
+    // the removed customer, empty if there was no customer with that id
+    Optional<Customer> deleteCustomerWithId(Long id);
+    List<Customer> deleteCustomersWithIds(Collection<Long> ids);
     void updateCustomer(Customer update);
+    // null arguments leave the column as it is; a non-null expectedVersion must match the stored version
+    CustomerUpdateResult updateCustomerFields(Long id, String name, String email, Integer age, Long expectedVersion);
 
 
 }
@@ -1,30 +1,123 @@
 package com.stefco.webapp.dao;
 
+import com.stefco.webapp.dao.helpers.CustomerIdAllocator;
 import com.stefco.webapp.model.Customer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository("jpa")
 public class CustomerDaoImpJPA implements CustomerDao{
 
     private final CustomerRepository customerRepository;
+    private final EntityManager entityManager;
+    private final CustomerIdAllocator customerIdAllocator;
 
-    public CustomerDaoImpJPA(CustomerRepository customerRepository) {
+    public CustomerDaoImpJPA(CustomerRepository customerRepository,
+                             EntityManager entityManager,
+                             CustomerIdAllocator customerIdAllocator) {
         this.customerRepository = customerRepository;
+        this.entityManager = entityManager;
+        this.customerIdAllocator = customerIdAllocator;
     }
 
+    // read-only so the routing DataSource may answer from a replica
     @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<Customer> selectAllCustomers() {
         return customerRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<Customer> selectCustomers(Long afterId, int limit) {
+        return customerRepository.findByIdGreaterThan(
+                afterId == null ? 0L : afterId,
+                PageRequest.of(0, limit, Sort.by("id"))
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<Customer> selectCustomers(CustomerQuery query, Customer after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Customer> criteriaQuery = cb.createQuery(Customer.class);
+        Root<Customer> root = criteriaQuery.from(Customer.class);
+        Predicate predicate = CustomerSpecifications.matching(query, after).toPredicate(root, criteriaQuery, cb);
+        if (predicate != null) {
+            criteriaQuery.where(predicate);
+        }
+        criteriaQuery.orderBy(CustomerSpecifications.orderBy(cb, root, query.sort(), query.descending()));
+        // a plain LIMIT, unlike a Pageable there is no count query
+        return entityManager.createQuery(criteriaQuery).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachCustomer(Consumer<Customer> action) {
+        try (Stream<Customer> customers = customerRepository.streamAllByOrderByIdAsc()) {
+            customers.forEach(customer -> {
+                action.accept(customer);
+                // keep the persistence context from growing with the table
+                entityManager.detach(customer);
+            });
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Optional<Customer> selectCustomerById(Long id) {
         return customerRepository.findById(id);
     }
 
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<Customer> selectCustomersByIds(Collection<Long> ids) {
+        return customerRepository.findAllById(ids);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Optional<Long> selectCustomerVersion(Long id) {
+        return customerRepository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<CustomerVersion> selectCustomerVersions(Long afterId, int limit) {
+        return customerRepository.findVersionsByIdGreaterThan(
+                afterId == null ? 0L : afterId,
+                PageRequest.of(0, limit, Sort.by("id"))
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<CustomerMatch> searchCustomers(String term, Float afterScore, Long afterId, int limit) {
+        return customerRepository.search(term, afterScore == null ? Float.MAX_VALUE : afterScore,
+                        afterId == null ? 0L : afterId, limit).stream()
+                .map(row -> new CustomerMatch(
+                        new Customer(row.getId(), row.getName(), row.getEmail(), row.getAge(), row.getVersion()),
+                        row.getScore()))
+                .toList();
+    }
+
     @Override
     public void insertCustomer(Customer customer) {
         customerRepository.save(customer);
@@ -32,22 +125,101 @@ public class CustomerDaoImpJPA implements CustomerDao{
     }
 
     @Override
+    public Optional<Long> insertCustomerIfEmailAbsent(Customer customer) {
+        // the id comes from the shared allocator, the column default would reserve a whole block per row
+        Optional<Long> id = customerRepository.insertIfEmailAbsent(
+                customerIdAllocator.nextId(), customer.getName(), customer.getEmail(), customer.getAge());
+        id.ifPresent(customer::setId);
+        return id;
+    }
+
+    @Override
+    @Transactional
+    public List<Boolean> insertCustomers(List<Customer> customers) {
+        Set<String> takenEmails = new HashSet<>(customerRepository.findEmailsIn(
+                customers.stream().map(Customer::getEmail).toList()
+        ));
+
+        List<Customer> toSave = new ArrayList<>(customers.size());
+        List<Boolean> inserted = new ArrayList<>(customers.size());
+        for (Customer customer : customers) {
+            // add() also catches the same email appearing twice in one batch
+            boolean available = takenEmails.add(customer.getEmail());
+            if (available) {
+                toSave.add(customer);
+            }
+            inserted.add(available);
+        }
+        // flushed in JDBC batches of hibernate.jdbc.batch_size
+        customerRepository.saveAll(toSave);
+        return inserted;
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public boolean existsPersonWithEmail(String email) {
         return customerRepository.existsCustomerByEmail(email);
     }
 
     @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public boolean existsCustomerWithId(Long id) {
         return customerRepository.existsCustomerById(id);
     }
 
     @Override
-    public void deleteCustomerWithId(Long id) {
-        customerRepository.deleteById(id);
+    @Transactional
+    public Optional<Customer> deleteCustomerWithId(Long id) {
+        Optional<Customer> customer = customerRepository.findByIdForUpdate(id);
+        customer.ifPresent(customerRepository::delete);
+        return customer;
+    }
+
+    @Override
+    @Transactional
+    public List<Customer> deleteCustomersWithIds(Collection<Long> ids) {
+        List<Customer> customers = customerRepository.findAllById(ids);
+        if (!customers.isEmpty()) {
+            customerRepository.deleteAllInBatch(customers);
+        }
+        return customers;
     }
 
     @Override
     public void updateCustomer(Customer update) {
         customerRepository.save(update);
     }
+
+    @Override
+    @Transactional
+    public CustomerUpdateResult updateCustomerFields(Long id, String name, String email, Integer age, Long expectedVersion) {
+        Optional<Customer> found = customerRepository.findById(id);
+        if (found.isEmpty()) {
+            return CustomerUpdateResult.notFound();
+        }
+
+        Customer customer = found.get();
+        if (expectedVersion != null && !expectedVersion.equals(customer.getVersion())) {
+            return CustomerUpdateResult.versionConflict();
+        }
+        boolean changed = false;
+        if (name != null && !name.equals(customer.getName())) {
+            customer.setName(name);
+            changed = true;
+        }
+        if (email != null && !email.equals(customer.getEmail())) {
+            customer.setEmail(email);
+            changed = true;
+        }
+        if (age != null && !age.equals(customer.getAge())) {
+            customer.setAge(age);
+            changed = true;
+        }
+        if (!changed) {
+            return CustomerUpdateResult.unchanged();
+        }
+
+        // flush here so a unique violation, or an update that committed since the read, surfaces from this call
+        return CustomerUpdateResult.updated(customerRepository.saveAndFlush(customer));
+    }
 }
@@ -1,38 +1,146 @@
 package com.stefco.webapp.dao;
 
+import com.stefco.webapp.dao.helpers.CustomerIdAllocator;
 import com.stefco.webapp.dao.helpers.CustomerRowMapper;
 import com.stefco.webapp.model.Customer;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Repository("jdbc")
 public class CustomerDaoImplJdbc implements CustomerDao{
 
+    // rows pulled per round trip when streaming; the driver only uses a cursor inside a transaction
+    static final int STREAM_FETCH_SIZE = 1000;
+    // rows per multi-row INSERT statement
+    static final int INSERT_BATCH_SIZE = 500;
+
     private final JdbcTemplate jdbcTemplate;
     private final CustomerRowMapper customerRowMapper;
+    private final CustomerIdAllocator customerIdAllocator;
 
-    public CustomerDaoImplJdbc(JdbcTemplate jdbcTemplate, CustomerRowMapper customerRowMapper) {
+    public CustomerDaoImplJdbc(JdbcTemplate jdbcTemplate,
+                               CustomerRowMapper customerRowMapper,
+                               CustomerIdAllocator customerIdAllocator) {
         this.jdbcTemplate = jdbcTemplate;
         this.customerRowMapper = customerRowMapper;
+        this.customerIdAllocator = customerIdAllocator;
     }
 
 
+    // SUPPORTS opens no transaction of its own, the read-only flag only lets reads go to a replica
     @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<Customer> selectAllCustomers() {
         String sql ="""
-                    SELECT id, name, email, age FROM customer
+                    SELECT id, name, email, age, version FROM customer
                     """;
 
-        return jdbcTemplate.query(sql, customerRowMapper);
+        return jdbcTemplate.query(sql, customerRowMapper.forQuery());
     }
 
     @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<Customer> selectCustomers(Long afterId, int limit) {
+        String sql = """
+                SELECT id, name, email, age, version
+                FROM customer
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?
+                """;
+
+        return jdbcTemplate.query(sql, customerRowMapper.forQuery(), afterId == null ? 0L : afterId, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<Customer> selectCustomers(CustomerQuery query, Customer after, int limit) {
+        // only placeholders and the whitelisted CustomerSort column go into the SQL text
+        StringBuilder sql = new StringBuilder("""
+                SELECT id, name, email, age, version
+                FROM customer
+                WHERE TRUE""");
+        List<Object> args = new ArrayList<>();
+        if (query.minAge() != null) {
+            sql.append(" AND age >= ?");
+            args.add(query.minAge());
+        }
+        if (query.maxAge() != null) {
+            sql.append(" AND age <= ?");
+            args.add(query.maxAge());
+        }
+        if (query.email() != null) {
+            sql.append(" AND email = ?");
+            args.add(query.email());
+        }
+        if (query.namePrefix() != null) {
+            // a left-anchored LIKE is answered by the text_pattern_ops index on name
+            sql.append(" AND name LIKE ?");
+            args.add(CustomerSpecifications.escapeLike(query.namePrefix()) + "%");
+        }
+
+        String comparison = query.descending() ? "<" : ">";
+        String direction = query.descending() ? " DESC" : "";
+        String column = query.sort().column();
+        if (query.sort() == CustomerSort.ID) {
+            if (after != null) {
+                sql.append(" AND id ").append(comparison).append(" ?");
+                args.add(after.getId());
+            }
+            sql.append(" ORDER BY id").append(direction);
+        } else {
+            if (after != null) {
+                // a row comparison is one range condition on the (column, id) index
+                sql.append(" AND (").append(column).append(", id) ").append(comparison).append(" (?, ?)");
+                args.add(query.sort().key(after));
+                args.add(after.getId());
+            }
+            sql.append(" ORDER BY ").append(column).append(direction).append(", id").append(direction);
+        }
+        sql.append(" LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), customerRowMapper.forQuery(), args.toArray());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachCustomer(Consumer<Customer> action) {
+        String sql = """
+                SELECT id, name, email, age, version
+                FROM customer
+                ORDER BY id
+                """;
+
+        RowMapper<Customer> customers = customerRowMapper.forQuery();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, rs -> {
+            action.accept(customers.mapRow(rs, rs.getRow()));
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Optional<Customer> selectCustomerById(Long id) {
         String sql = """
-                SELECT id, name, email, age 
+                SELECT id, name, email, age, version 
                 FROM customer 
                 WHERE id = ?
                 """;
@@ -40,59 +148,246 @@ public class CustomerDaoImplJdbc implements CustomerDao{
         return jdbcTemplate.query(sql, customerRowMapper, id).stream().findFirst();
     }
 
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<Customer> selectCustomersByIds(Collection<Long> ids) {
+        String sql = """
+                SELECT id, name, email, age, version
+                FROM customer
+                WHERE id = ANY(?)
+                """;
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, customerRowMapper.forQuery());
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Optional<Long> selectCustomerVersion(Long id) {
+        String sql = """
+                SELECT version
+                FROM customer
+                WHERE id = ?
+                """;
+
+        return jdbcTemplate.queryForList(sql, Long.class, id).stream().findFirst();
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<CustomerVersion> selectCustomerVersions(Long afterId, int limit) {
+        String sql = """
+                SELECT id, version
+                FROM customer
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?
+                """;
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new CustomerVersion(rs.getLong(1), rs.getLong(2)),
+                afterId == null ? 0L : afterId, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<CustomerMatch> searchCustomers(String term, Float afterScore, Long afterId, int limit) {
+        // <% is word similarity above pg_trgm.word_similarity_threshold, so a term also finds the names
+        // and emails it is only part of; both sides are answered by the trigram indexes
+        String sql = """
+                SELECT id, name, email, age, version, score
+                FROM (
+                    SELECT id, name, email, age, version,
+                           GREATEST(word_similarity(?, name), word_similarity(?, email)) AS score
+                    FROM customer
+                    WHERE ? <% name OR ? <% email
+                ) matches
+                WHERE score < ?::real OR (score = ?::real AND id > ?)
+                ORDER BY score DESC, id
+                LIMIT ?
+                """;
+
+        // no score is above 1, so the first page starts below MAX_VALUE
+        float score = afterScore == null ? Float.MAX_VALUE : afterScore;
+        RowMapper<Customer> customers = customerRowMapper.forQuery();
+        return jdbcTemplate.query(sql,
+                (rs, rowNum) -> new CustomerMatch(customers.mapRow(rs, rowNum), rs.getFloat("score")),
+                term, term, term, term, score, score, afterId == null ? 0L : afterId, limit);
+    }
+
     @Override
     public void insertCustomer(Customer customer) {
         String sql = """
-                    INSERT INTO customer(name, email, age)
-                    VALUES (?,?,?)
+                    INSERT INTO customer(id, name, email, age)
+                    VALUES (?,?,?,?)
+                    """;
+        long id = customerIdAllocator.nextId();
+        jdbcTemplate.update(sql, id, customer.getName(), customer.getEmail(), customer.getAge());
+        customer.setId(id);
+    }
+
+    @Override
+    public Optional<Long> insertCustomerIfEmailAbsent(Customer customer) {
+        String sql = """
+                    INSERT INTO customer(id, name, email, age)
+                    VALUES (?,?,?,?)
+                    ON CONFLICT (email) DO NOTHING
+                    RETURNING id
                     """;
-        int updated = jdbcTemplate.update(sql, customer.getName(), customer.getEmail(), customer.getAge());
-        System.out.println("Total Values updated " + updated);
+        Optional<Long> id = jdbcTemplate.query(sql, (rs, rowNum) -> rs.getLong("id"),
+                customerIdAllocator.nextId(), customer.getName(), customer.getEmail(), customer.getAge()
+        ).stream().findFirst();
+        id.ifPresent(customer::setId);
+        return id;
     }
 
     @Override
+    @Transactional
+    public List<Boolean> insertCustomers(List<Customer> customers) {
+        // one multi-row statement per chunk; RETURNING only lists the rows that were not skipped
+        // as duplicates, the ids are allocated up front so they tell which ones those were
+        String sql = """
+                    INSERT INTO customer(id, name, email, age)
+                    SELECT * FROM unnest(?::bigint[], ?::text[], ?::text[], ?::int[])
+                    ON CONFLICT (email) DO NOTHING
+                    RETURNING id
+                    """;
+        long[] ids = customerIdAllocator.nextIds(customers.size());
+        Set<Long> insertedIds = new HashSet<>(customers.size());
+        for (int from = 0; from < customers.size(); from += INSERT_BATCH_SIZE) {
+            int to = Math.min(from + INSERT_BATCH_SIZE, customers.size());
+            List<Customer> chunk = customers.subList(from, to);
+            Object[] chunkIds = Arrays.stream(ids, from, to).boxed().toArray();
+            insertedIds.addAll(jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql);
+                ps.setArray(1, con.createArrayOf("bigint", chunkIds));
+                ps.setArray(2, con.createArrayOf("text", chunk.stream().map(Customer::getName).toArray()));
+                ps.setArray(3, con.createArrayOf("text", chunk.stream().map(Customer::getEmail).toArray()));
+                ps.setArray(4, con.createArrayOf("int4", chunk.stream().map(Customer::getAge).toArray()));
+                return ps;
+            }, (rs, rowNum) -> rs.getLong(1)));
+        }
+
+        List<Boolean> inserted = new ArrayList<>(customers.size());
+        for (int i = 0; i < customers.size(); i++) {
+            boolean created = insertedIds.contains(ids[i]);
+            if (created) {
+                customers.get(i).setId(ids[i]);
+            }
+            inserted.add(created);
+        }
+        return inserted;
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public boolean existsPersonWithEmail(String email) {
+        // EXISTS stops at the first index hit instead of counting
         String sql = """
-                SELECT count(id)
-                FROM customer
-                WHERE email = ?
+                SELECT EXISTS (SELECT 1 FROM customer WHERE email = ?)
                 """;
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, email);
-        return count!= null && count > 0;
-
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, email));
     }
 
     @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public boolean existsCustomerWithId(Long id) {
+        // EXISTS stops at the first index hit instead of counting
         String sql = """
-                SELECT count(id)
-                FROM customer
+                SELECT EXISTS (SELECT 1 FROM customer WHERE id = ?)
+                """;
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, id));
+    }
+
+    @Override
+    public Optional<Customer> deleteCustomerWithId(Long id) {
+        String sql = """
+                DELETE FROM customer
                 WHERE id = ?
+                RETURNING id, name, email, age, version
                 """;
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
-        return count!= null && count > 0;
+        return jdbcTemplate.query(sql, customerRowMapper, id).stream().findFirst();
     }
 
     @Override
-    public void deleteCustomerWithId(Long id) {
+    public List<Customer> deleteCustomersWithIds(Collection<Long> ids) {
         String sql = """
                 DELETE FROM customer
-                WHERE id = ?;
+                WHERE id = ANY(?)
+                RETURNING id, name, email, age, version
                 """;
-        int updated = jdbcTemplate.update(sql, id);
-        System.out.println("Customers Deleted " + updated);
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            return ps;
+        }, customerRowMapper.forQuery());
     }
 
     @Override
     public void updateCustomer(Customer update) {
         String sql = """
                 UPDATE customer
-                SET name = ?, email = ?, age = ?
+                SET name = ?, email = ?, age = ?, version = version + 1
                 WHERE id = ?
                 """;
         if (update.getName() != null && update.getEmail() != null && update.getAge() != null) {
-            int updated = jdbcTemplate.update(sql, update.getName(), update.getEmail(), update.getAge(), update.getId());
-            System.out.println("Customers Updated " + updated);
+            jdbcTemplate.update(sql, update.getName(), update.getEmail(), update.getAge(), update.getId());
         }
     }
+
+    @Override
+    public CustomerUpdateResult updateCustomerFields(Long id, String name, String email, Integer age, Long expectedVersion) {
+        // the update only matches when a value actually changes and the version is the expected one;
+        // target tells a missing row from a no-op or a stale version. PostgreSQL re-checks the WHERE
+        // against a row another transaction just updated, so no lock is taken before the update
+        String sql = """
+                WITH changes (id, name, email, age, version) AS (
+                    VALUES (?::bigint, ?::text, ?::text, ?::int, ?::bigint)
+                ), target AS (
+                    SELECT c.version,
+                           (c.name IS DISTINCT FROM COALESCE(ch.name, c.name)
+                             OR c.email IS DISTINCT FROM COALESCE(ch.email, c.email)
+                             OR c.age IS DISTINCT FROM COALESCE(ch.age, c.age)) AS differs
+                    FROM customer c
+                    JOIN changes ch ON c.id = ch.id
+                ), updated AS (
+                    UPDATE customer c
+                    SET name = COALESCE(ch.name, c.name),
+                        email = COALESCE(ch.email, c.email),
+                        age = COALESCE(ch.age, c.age),
+                        version = c.version + 1
+                    FROM changes ch
+                    WHERE c.id = ch.id
+                      AND (ch.version IS NULL OR c.version = ch.version)
+                      AND (c.name IS DISTINCT FROM COALESCE(ch.name, c.name)
+                        OR c.email IS DISTINCT FROM COALESCE(ch.email, c.email)
+                        OR c.age IS DISTINCT FROM COALESCE(ch.age, c.age))
+                    RETURNING c.id, c.name, c.email, c.age, c.version
+                )
+                SELECT t.version IS NOT NULL AS found, t.version AS current_version, t.differs,
+                       u.id, u.name, u.email, u.age, u.version
+                FROM (SELECT 1) AS one
+                LEFT JOIN target t ON true
+                LEFT JOIN updated u ON true
+                """;
+        Object[] args = {id, name, email, age, expectedVersion};
+        int[] argTypes = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.BIGINT};
+
+        return jdbcTemplate.query(sql, args, argTypes, rs -> {
+            rs.next();
+            if (!rs.getBoolean("found")) {
+                return CustomerUpdateResult.notFound();
+            }
+            if (rs.getObject("id") != null) {
+                return CustomerUpdateResult.updated(customerRowMapper.mapRow(rs, 0));
+            }
+            // a change that should have applied but did not lost the re-check to a concurrent update
+            if (expectedVersion != null
+                    && (rs.getLong("current_version") != expectedVersion || rs.getBoolean("differs"))) {
+                return CustomerUpdateResult.versionConflict();
+            }
+            return CustomerUpdateResult.unchanged();
+        });
+    }
 }
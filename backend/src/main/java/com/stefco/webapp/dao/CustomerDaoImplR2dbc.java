@@ -0,0 +1,195 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.dao.helpers.ReactiveCustomerIdAllocator;
+import com.stefco.webapp.model.Customer;
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository("r2dbc")
+@Profile("reactive")
+public class CustomerDaoImplR2dbc implements ReactiveCustomerDao {
+
+    static final int STREAM_FETCH_SIZE = 1000;
+
+    private final DatabaseClient databaseClient;
+    private final ReactiveCustomerIdAllocator customerIdAllocator;
+
+    public CustomerDaoImplR2dbc(DatabaseClient databaseClient, ReactiveCustomerIdAllocator customerIdAllocator) {
+        this.databaseClient = databaseClient;
+        this.customerIdAllocator = customerIdAllocator;
+    }
+
+    @Override
+    public Flux<Customer> selectCustomers(Long afterId, int limit) {
+        String sql = """
+                SELECT id, name, email, age, version
+                FROM customer
+                WHERE id > :afterId
+                ORDER BY id
+                LIMIT :limit
+                """;
+        return databaseClient.sql(sql)
+                .bind("afterId", afterId == null ? 0L : afterId)
+                .bind("limit", limit)
+                .map(CustomerDaoImplR2dbc::toCustomer)
+                .all();
+    }
+
+    @Override
+    public Flux<Customer> streamAllCustomers() {
+        String sql = """
+                SELECT id, name, email, age, version
+                FROM customer
+                ORDER BY id
+                """;
+        // with a fetch size the driver pulls rows in chunks as demand arrives instead of buffering the table
+        return databaseClient.sql(sql)
+                .filter(statement -> statement.fetchSize(STREAM_FETCH_SIZE))
+                .map(CustomerDaoImplR2dbc::toCustomer)
+                .all();
+    }
+
+    @Override
+    public Mono<Customer> selectCustomerById(Long id) {
+        String sql = """
+                SELECT id, name, email, age, version
+                FROM customer
+                WHERE id = :id
+                """;
+        return databaseClient.sql(sql)
+                .bind("id", id)
+                .map(CustomerDaoImplR2dbc::toCustomer)
+                .one();
+    }
+
+    @Override
+    public Mono<Long> selectCustomerVersion(Long id) {
+        String sql = """
+                SELECT version
+                FROM customer
+                WHERE id = :id
+                """;
+        return databaseClient.sql(sql)
+                .bind("id", id)
+                .map(row -> row.get("version", Long.class))
+                .one();
+    }
+
+    @Override
+    public Flux<CustomerVersion> selectCustomerVersions(Long afterId, int limit) {
+        String sql = """
+                SELECT id, version
+                FROM customer
+                WHERE id > :afterId
+                ORDER BY id
+                LIMIT :limit
+                """;
+        return databaseClient.sql(sql)
+                .bind("afterId", afterId == null ? 0L : afterId)
+                .bind("limit", limit)
+                .map(row -> new CustomerVersion(row.get("id", Long.class), row.get("version", Long.class)))
+                .all();
+    }
+
+    @Override
+    public Mono<Long> insertCustomerIfEmailAbsent(Customer customer) {
+        // the id comes from the pooled-lo allocator, the column default would reserve a whole block per row
+        String sql = """
+                INSERT INTO customer(id, name, email, age)
+                VALUES (:id, :name, :email, :age)
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id
+                """;
+        return customerIdAllocator.nextId().flatMap(id -> databaseClient.sql(sql)
+                        .bind("id", id)
+                        .bind("name", customer.getName())
+                        .bind("email", customer.getEmail())
+                        .bind("age", customer.getAge())
+                        .map(row -> row.get("id", Long.class))
+                        .one())
+                .doOnNext(customer::setId);
+    }
+
+    @Override
+    public Mono<Customer> deleteCustomerWithId(Long id) {
+        String sql = """
+                DELETE FROM customer
+                WHERE id = :id
+                RETURNING id, name, email, age, version
+                """;
+        return databaseClient.sql(sql)
+                .bind("id", id)
+                .map(CustomerDaoImplR2dbc::toCustomer)
+                .one();
+    }
+
+    @Override
+    public Mono<CustomerUpdateResult> updateCustomerFields(Long id, String name, String email, Integer age, Long expectedVersion) {
+        // same statement as the JDBC implementation
+        String sql = """
+                WITH changes (id, name, email, age, version) AS (
+                    VALUES (CAST(:id AS bigint), CAST(:name AS text), CAST(:email AS text), CAST(:age AS int), CAST(:version AS bigint))
+                ), target AS (
+                    SELECT c.version,
+                           (c.name IS DISTINCT FROM COALESCE(ch.name, c.name)
+                             OR c.email IS DISTINCT FROM COALESCE(ch.email, c.email)
+                             OR c.age IS DISTINCT FROM COALESCE(ch.age, c.age)) AS differs
+                    FROM customer c
+                    JOIN changes ch ON c.id = ch.id
+                ), updated AS (
+                    UPDATE customer c
+                    SET name = COALESCE(ch.name, c.name),
+                        email = COALESCE(ch.email, c.email),
+                        age = COALESCE(ch.age, c.age),
+                        version = c.version + 1
+                    FROM changes ch
+                    WHERE c.id = ch.id
+                      AND (ch.version IS NULL OR c.version = ch.version)
+                      AND (c.name IS DISTINCT FROM COALESCE(ch.name, c.name)
+                        OR c.email IS DISTINCT FROM COALESCE(ch.email, c.email)
+                        OR c.age IS DISTINCT FROM COALESCE(ch.age, c.age))
+                    RETURNING c.id, c.name, c.email, c.age, c.version
+                )
+                SELECT t.version IS NOT NULL AS found, t.version AS current_version, t.differs,
+                       u.id, u.name, u.email, u.age, u.version
+                FROM (SELECT 1) AS one
+                LEFT JOIN target t ON true
+                LEFT JOIN updated u ON true
+                """;
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql).bind("id", id);
+        spec = name == null ? spec.bindNull("name", String.class) : spec.bind("name", name);
+        spec = email == null ? spec.bindNull("email", String.class) : spec.bind("email", email);
+        spec = age == null ? spec.bindNull("age", Integer.class) : spec.bind("age", age);
+        spec = expectedVersion == null ? spec.bindNull("version", Long.class) : spec.bind("version", expectedVersion);
+        return spec
+                .map(row -> {
+                    if (!Boolean.TRUE.equals(row.get("found", Boolean.class))) {
+                        return CustomerUpdateResult.notFound();
+                    }
+                    if (row.get("id") != null) {
+                        return CustomerUpdateResult.updated(toCustomer(row));
+                    }
+                    if (expectedVersion != null
+                            && (!expectedVersion.equals(row.get("current_version", Long.class))
+                                || Boolean.TRUE.equals(row.get("differs", Boolean.class)))) {
+                        return CustomerUpdateResult.versionConflict();
+                    }
+                    return CustomerUpdateResult.unchanged();
+                })
+                .one();
+    }
+
+    private static Customer toCustomer(Readable row) {
+        return new Customer(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("email", String.class),
+                row.get("age", Integer.class),
+                row.get("version", Long.class)
+        );
+    }
+}
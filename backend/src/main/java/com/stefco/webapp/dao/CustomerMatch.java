@@ -0,0 +1,10 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.model.Customer;
+
+/**
+ * A customer found by a search with how well it matched, from 0 to 1; together with the id the score is
+ * the keyset position of the match.
+ */
+public record CustomerMatch(Customer customer, float score) {
+}
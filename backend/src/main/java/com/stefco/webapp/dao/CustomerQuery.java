@@ -0,0 +1,13 @@
+package com.stefco.webapp.dao;
+
+/**
+ * Filters and order of a customer listing; a null filter is not applied. Age bounds are inclusive and
+ * namePrefix is matched literally, case-sensitive.
+ */
+public record CustomerQuery(Integer minAge,
+                            Integer maxAge,
+                            String email,
+                            String namePrefix,
+                            CustomerSort sort,
+                            boolean descending) {
+}
@@ -1,9 +1,70 @@
 package com.stefco.webapp.dao;
 
 import com.stefco.webapp.model.Customer;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
     boolean existsCustomerByEmail(String email);
     boolean existsCustomerById(Long id);
+    List<Customer> findByIdGreaterThan(Long id, Pageable pageable);
+    // the row lock makes concurrent read-modify-writes wait instead of failing the version check
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Customer c where c.id = :id")
+    Optional<Customer> findByIdForUpdate(@Param("id") Long id);
+    @Query("select c.version from Customer c where c.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+    @Query("select new com.stefco.webapp.dao.CustomerVersion(c.id, c.version) from Customer c where c.id > :id")
+    List<CustomerVersion> findVersionsByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+    @Query("select c.email from Customer c where c.email in :emails")
+    List<String> findEmailsIn(@Param("emails") Collection<String> emails);
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            INSERT INTO customer(id, name, email, age)
+            VALUES (:id, :name, :email, :age)
+            ON CONFLICT (email) DO NOTHING
+            RETURNING id
+            """)
+    Optional<Long> insertIfEmailAbsent(@Param("id") Long id, @Param("name") String name,
+                                       @Param("email") String email, @Param("age") Integer age);
+    // same query as the JDBC DAO, see CustomerDaoImplJdbc.searchCustomers
+    @Query(nativeQuery = true, value = """
+            SELECT id, name, email, age, version, score
+            FROM (
+                SELECT id, name, email, age, version,
+                       GREATEST(word_similarity(:term, name), word_similarity(:term, email)) AS score
+                FROM customer
+                WHERE :term <% name OR :term <% email
+            ) matches
+            WHERE score < CAST(:afterScore AS real) OR (score = CAST(:afterScore AS real) AND id > :afterId)
+            ORDER BY score DESC, id
+            LIMIT :limit
+            """)
+    List<CustomerMatchRow> search(@Param("term") String term, @Param("afterScore") float afterScore,
+                                  @Param("afterId") long afterId, @Param("limit") int limit);
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<Customer> streamAllByOrderByIdAsc();
+
+    interface CustomerMatchRow {
+        Long getId();
+        String getName();
+        String getEmail();
+        Integer getAge();
+        Long getVersion();
+        Float getScore();
+    }
 }
@@ -0,0 +1,34 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.model.Customer;
+
+import java.util.function.Function;
+
+/**
+ * The orders a customer query can be listed in. Ties are broken by id, so together with the id the sort
+ * value is the keyset position of a customer. The column doubles as the JPA attribute name and is the only
+ * part of a query that is put into SQL as text.
+ */
+public enum CustomerSort {
+
+    ID("id", Customer::getId),
+    NAME("name", Customer::getName),
+    AGE("age", Customer::getAge);
+
+    private final String column;
+    private final Function<Customer, Comparable<?>> key;
+
+    CustomerSort(String column, Function<Customer, Comparable<?>> key) {
+        this.column = column;
+        this.key = key;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    // the sort value of customer
+    public Comparable<?> key(Customer customer) {
+        return key.apply(customer);
+    }
+}
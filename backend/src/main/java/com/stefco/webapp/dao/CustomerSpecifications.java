@@ -0,0 +1,91 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.model.Customer;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+// The JPA side of CustomerQuery, producing the same predicates and order as CustomerDaoImplJdbc.selectCustomers
+final class CustomerSpecifications {
+
+    private CustomerSpecifications() {
+    }
+
+    // every filter of query, plus the keyset condition when after is set
+    static Specification<Customer> matching(CustomerQuery query, Customer after) {
+        Specification<Customer> specification = Specification.where(null);
+        if (query.minAge() != null) {
+            specification = specification.and(ageAtLeast(query.minAge()));
+        }
+        if (query.maxAge() != null) {
+            specification = specification.and(ageAtMost(query.maxAge()));
+        }
+        if (query.email() != null) {
+            specification = specification.and(emailIs(query.email()));
+        }
+        if (query.namePrefix() != null) {
+            specification = specification.and(nameStartsWith(query.namePrefix()));
+        }
+        if (after != null) {
+            specification = specification.and(after(query.sort(), query.descending(), after));
+        }
+        return specification;
+    }
+
+    static Specification<Customer> ageAtLeast(int age) {
+        return (root, criteriaQuery, cb) -> cb.greaterThanOrEqualTo(root.get("age"), age);
+    }
+
+    static Specification<Customer> ageAtMost(int age) {
+        return (root, criteriaQuery, cb) -> cb.lessThanOrEqualTo(root.get("age"), age);
+    }
+
+    static Specification<Customer> emailIs(String email) {
+        return (root, criteriaQuery, cb) -> cb.equal(root.get("email"), email);
+    }
+
+    static Specification<Customer> nameStartsWith(String prefix) {
+        return (root, criteriaQuery, cb) -> cb.like(root.get("name"), escapeLike(prefix) + "%", '\\');
+    }
+
+    // (sort, id) strictly past the position of after in the listing order
+    static Specification<Customer> after(CustomerSort sort, boolean descending, Customer after) {
+        return (root, criteriaQuery, cb) -> {
+            if (sort == CustomerSort.ID) {
+                return beyond(cb, root.get("id"), after.getId(), descending);
+            }
+            Expression<Comparable<Object>> column = root.get(sort.column());
+            @SuppressWarnings("unchecked")
+            Comparable<Object> key = (Comparable<Object>) sort.key(after);
+            return cb.or(
+                    beyond(cb, column, key, descending),
+                    cb.and(cb.equal(column, key), beyond(cb, root.get("id"), after.getId(), descending)));
+        };
+    }
+
+    static List<Order> orderBy(CriteriaBuilder cb, Root<Customer> root, CustomerSort sort, boolean descending) {
+        if (sort == CustomerSort.ID) {
+            return List.of(order(cb, root.get("id"), descending));
+        }
+        return List.of(order(cb, root.get(sort.column()), descending), order(cb, root.get("id"), descending));
+    }
+
+    // % and _ in the prefix are literal characters, not wildcards
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static <Y extends Comparable<? super Y>> Predicate beyond(
+            CriteriaBuilder cb, Expression<? extends Y> column, Y value, boolean descending) {
+        return descending ? cb.lessThan(column, value) : cb.greaterThan(column, value);
+    }
+
+    private static Order order(CriteriaBuilder cb, Expression<?> column, boolean descending) {
+        return descending ? cb.desc(column) : cb.asc(column);
+    }
+}
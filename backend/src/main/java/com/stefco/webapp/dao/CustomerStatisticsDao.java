@@ -0,0 +1,70 @@
+package com.stefco.webapp.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads the customer summaries that the triggers of V7__Customer_Statistics.sql keep current on every
+ * insert, update, delete and COPY, whichever DAO issued it. Only the summary tables are read, a few rows
+ * per age or day, never {@code customer} itself.
+ */
+@Repository
+public class CustomerStatisticsDao {
+
+    public enum Period {
+        DAY,
+        WEEK,
+        MONTH
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CustomerStatisticsDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // number of customers per age, ascending by age, ages without customers left out
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Map<Integer, Long> selectAgeHistogram() {
+        String sql = """
+                SELECT age, sum(customers)
+                FROM customer_age_count
+                GROUP BY age
+                HAVING sum(customers) > 0
+                ORDER BY age
+                """;
+
+        Map<Integer, Long> histogram = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            histogram.put(rs.getInt(1), rs.getLong(2));
+        });
+        return histogram;
+    }
+
+    // customers created on the UTC days in [from, to), summed per period and keyed by the period's first day;
+    // periods without creations are left out, weeks start on Monday
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Map<LocalDate, Long> selectCreatedCounts(Period period, LocalDate from, LocalDate to) {
+        String sql = """
+                SELECT date_trunc(?, day::timestamp)::date AS period, sum(customers)
+                FROM customer_created_count
+                WHERE day >= ? AND day < ?
+                GROUP BY 1
+                HAVING sum(customers) > 0
+                ORDER BY 1
+                """;
+
+        Map<LocalDate, Long> created = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            created.put(rs.getObject(1, LocalDate.class), rs.getLong(2));
+        }, period.name().toLowerCase(Locale.ROOT), from, to);
+        return created;
+    }
+}
@@ -0,0 +1,33 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.model.Customer;
+
+/**
+ * Outcome of a partial update; {@code customer} holds the new row when the status is UPDATED.
+ */
+public record CustomerUpdateResult(Status status, Customer customer) {
+
+    public enum Status {
+        UPDATED,
+        UNCHANGED,
+        NOT_FOUND,
+        // the customer exists but no longer has the expected version
+        VERSION_CONFLICT
+    }
+
+    public static CustomerUpdateResult updated(Customer customer) {
+        return new CustomerUpdateResult(Status.UPDATED, customer);
+    }
+
+    public static CustomerUpdateResult unchanged() {
+        return new CustomerUpdateResult(Status.UNCHANGED, null);
+    }
+
+    public static CustomerUpdateResult notFound() {
+        return new CustomerUpdateResult(Status.NOT_FOUND, null);
+    }
+
+    public static CustomerUpdateResult versionConflict() {
+        return new CustomerUpdateResult(Status.VERSION_CONFLICT, null);
+    }
+}
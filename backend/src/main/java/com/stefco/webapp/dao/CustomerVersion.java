@@ -0,0 +1,7 @@
+package com.stefco.webapp.dao;
+
+/**
+ * The id and version of a customer row, enough to tell whether a client's copy is still current.
+ */
+public record CustomerVersion(Long id, Long version) {
+}
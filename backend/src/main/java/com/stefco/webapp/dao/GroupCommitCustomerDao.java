@@ -0,0 +1,272 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.model.Customer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Group commit for single-customer inserts in front of any CustomerDao: concurrent insertCustomerIfEmailAbsent
+// calls are written together by one insertCustomers call, so one statement and one commit for the lot.
+// There is no flusher thread. The caller that finds no batch being written leads: it waits up to maxDelay
+// for maxBatchSize rows, writes them and hands the lead to the oldest caller still queued, so nobody writes
+// more than one batch. Everyone else parks until its own row has been written.
+// Calls made inside a transaction go straight through, their row must commit with that transaction.
+public class GroupCommitCustomerDao implements CustomerDao {
+
+    static final String METRIC_NAME = "customer.dao.insert.batch";
+
+    private final CustomerDao delegate;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final DistributionSummary batchSizes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchFull = lock.newCondition();
+    // guarded by lock
+    private final Deque<PendingInsert> queue = new ArrayDeque<>();
+    private boolean writing;
+
+    public GroupCommitCustomerDao(CustomerDao delegate, int maxBatchSize, Duration maxDelay, MeterRegistry meterRegistry) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1 but was " + maxBatchSize);
+        }
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.batchSizes = DistributionSummary.builder(METRIC_NAME)
+                .description("Single-customer inserts written together by one group commit")
+                .baseUnit("rows")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<Long> insertCustomerIfEmailAbsent(Customer customer) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return delegate.insertCustomerIfEmailAbsent(customer);
+        }
+        PendingInsert insert = new PendingInsert(customer, Thread.currentThread());
+        lock.lock();
+        try {
+            queue.add(insert);
+            if (!writing) {
+                writing = true;
+                insert.lead = true;
+            } else if (queue.size() >= maxBatchSize) {
+                batchFull.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        boolean interrupted = false;
+        while (!insert.done) {
+            if (insert.lead) {
+                // the leader's own row is the oldest one queued, so it is always part of the batch it writes
+                lead();
+            } else {
+                LockSupport.park(this);
+                // the row may already be in a batch being written, so an interrupt cannot cancel it
+                interrupted |= Thread.interrupted();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (insert.failure != null) {
+            throw insert.failure;
+        }
+        return insert.id;
+    }
+
+    private void lead() {
+        List<PendingInsert> batch = new ArrayList<>(maxBatchSize);
+        lock.lock();
+        try {
+            long remaining = maxDelayNanos;
+            while (queue.size() < maxBatchSize && remaining > 0) {
+                remaining = batchFull.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            // write what is there now
+            Thread.currentThread().interrupt();
+        } finally {
+            while (batch.size() < maxBatchSize && !queue.isEmpty()) {
+                batch.add(queue.poll());
+            }
+            lock.unlock();
+        }
+
+        try {
+            write(batch);
+        } finally {
+            lock.lock();
+            try {
+                PendingInsert next = queue.peek();
+                if (next == null) {
+                    writing = false;
+                } else {
+                    next.lead = true;
+                    LockSupport.unpark(next.caller);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void write(List<PendingInsert> batch) {
+        batchSizes.record(batch.size());
+        try {
+            List<Boolean> inserted = delegate.insertCustomers(batch.stream().map(PendingInsert::customer).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                PendingInsert insert = batch.get(i);
+                insert.complete(inserted.get(i) ? Optional.of(insert.customer.getId()) : Optional.empty(), null);
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).complete(null, e);
+                return;
+            }
+            // the batch went down as a whole, retry the rows one by one so a bad row only fails its own caller
+            for (PendingInsert insert : batch) {
+                try {
+                    // the failed batch may have assigned it an id that was rolled back
+                    insert.customer.setId(null);
+                    insert.complete(delegate.insertCustomerIfEmailAbsent(insert.customer), null);
+                } catch (RuntimeException rowFailure) {
+                    insert.complete(null, rowFailure);
+                }
+            }
+        } catch (Error e) {
+            for (PendingInsert insert : batch) {
+                insert.complete(null, new IllegalStateException("insert batch failed", e));
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return delegate.selectAllCustomers();
+    }
+
+    @Override
+    public List<Customer> selectCustomers(Long afterId, int limit) {
+        return delegate.selectCustomers(afterId, limit);
+    }
+
+    @Override
+    public List<Customer> selectCustomers(CustomerQuery query, Customer after, int limit) {
+        return delegate.selectCustomers(query, after, limit);
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> action) {
+        delegate.forEachCustomer(action);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long id) {
+        return delegate.selectCustomerById(id);
+    }
+
+    @Override
+    public List<Customer> selectCustomersByIds(Collection<Long> ids) {
+        return delegate.selectCustomersByIds(ids);
+    }
+
+    @Override
+    public Optional<Long> selectCustomerVersion(Long id) {
+        return delegate.selectCustomerVersion(id);
+    }
+
+    @Override
+    public List<CustomerVersion> selectCustomerVersions(Long afterId, int limit) {
+        return delegate.selectCustomerVersions(afterId, limit);
+    }
+
+    @Override
+    public List<CustomerMatch> searchCustomers(String term, Float afterScore, Long afterId, int limit) {
+        return delegate.searchCustomers(term, afterScore, afterId, limit);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        delegate.insertCustomer(customer);
+    }
+
+    @Override
+    public List<Boolean> insertCustomers(List<Customer> customers) {
+        return delegate.insertCustomers(customers);
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return delegate.existsPersonWithEmail(email);
+    }
+
+    @Override
+    public boolean existsCustomerWithId(Long id) {
+        return delegate.existsCustomerWithId(id);
+    }
+
+    @Override
+    public Optional<Customer> deleteCustomerWithId(Long id) {
+        return delegate.deleteCustomerWithId(id);
+    }
+
+    @Override
+    public List<Customer> deleteCustomersWithIds(Collection<Long> ids) {
+        return delegate.deleteCustomersWithIds(ids);
+    }
+
+    @Override
+    public void updateCustomer(Customer update) {
+        delegate.updateCustomer(update);
+    }
+
+    @Override
+    public CustomerUpdateResult updateCustomerFields(Long id, String name, String email, Integer age, Long expectedVersion) {
+        return delegate.updateCustomerFields(id, name, email, age, expectedVersion);
+    }
+
+    private static final class PendingInsert {
+
+        private final Customer customer;
+        private final Thread caller;
+        private volatile boolean lead;
+        private Optional<Long> id;
+        private RuntimeException failure;
+        // written last, publishes id and failure to the caller
+        private volatile boolean done;
+
+        private PendingInsert(Customer customer, Thread caller) {
+            this.customer = customer;
+            this.caller = caller;
+        }
+
+        private Customer customer() {
+            return customer;
+        }
+
+        private void complete(Optional<Long> id, RuntimeException failure) {
+            this.id = id;
+            this.failure = failure;
+            this.done = true;
+            if (caller != Thread.currentThread()) {
+                LockSupport.unpark(caller);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.model.Customer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+public interface ReactiveCustomerDao {
+
+    Flux<Customer> selectCustomers(Long afterId, int limit);
+    // every customer ordered by id, emitted as fast as the subscriber requests them
+    Flux<Customer> streamAllCustomers();
+    Mono<Customer> selectCustomerById(Long id);
+    // just the version, empty if there is no customer with that id
+    Mono<Long> selectCustomerVersion(Long id);
+    // ids and versions of the page selectCustomers would return
+    Flux<CustomerVersion> selectCustomerVersions(Long afterId, int limit);
+    // id of the new customer, empty if the email was already taken
+    Mono<Long> insertCustomerIfEmailAbsent(Customer customer);
+    // the removed customer, empty if there was no customer with that id
+    Mono<Customer> deleteCustomerWithId(Long id);
+    // null arguments leave the column as it is
+    Mono<CustomerUpdateResult> updateCustomerFields(Long id, String name, String email, Integer age, Long expectedVersion);
+
+
+}
@@ -0,0 +1,165 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.model.Customer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Times every call into a CustomerDao as customer.dao, tagged with the method, the implementation
+// and the outcome, so database latency can be told apart from the HTTP latency around it.
+public class TimedCustomerDao implements CustomerDao {
+
+    static final String METRIC_NAME = "customer.dao";
+
+    private final CustomerDao delegate;
+    private final String implementation;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public TimedCustomerDao(CustomerDao delegate, String implementation, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.implementation = implementation;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return record("selectAllCustomers", delegate::selectAllCustomers);
+    }
+
+    @Override
+    public List<Customer> selectCustomers(Long afterId, int limit) {
+        return record("selectCustomers", () -> delegate.selectCustomers(afterId, limit));
+    }
+
+    @Override
+    public List<Customer> selectCustomers(CustomerQuery query, Customer after, int limit) {
+        return record("selectCustomersByQuery", () -> delegate.selectCustomers(query, after, limit));
+    }
+
+    @Override
+    public void forEachCustomer(Consumer<Customer> action) {
+        record("forEachCustomer", () -> {
+            delegate.forEachCustomer(action);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long id) {
+        return record("selectCustomerById", () -> delegate.selectCustomerById(id), found -> found.isPresent() ? "hit" : "miss");
+    }
+
+    @Override
+    public List<Customer> selectCustomersByIds(Collection<Long> ids) {
+        return record("selectCustomersByIds", () -> delegate.selectCustomersByIds(ids));
+    }
+
+    @Override
+    public Optional<Long> selectCustomerVersion(Long id) {
+        return record("selectCustomerVersion", () -> delegate.selectCustomerVersion(id), found -> found.isPresent() ? "hit" : "miss");
+    }
+
+    @Override
+    public List<CustomerVersion> selectCustomerVersions(Long afterId, int limit) {
+        return record("selectCustomerVersions", () -> delegate.selectCustomerVersions(afterId, limit));
+    }
+
+    @Override
+    public List<CustomerMatch> searchCustomers(String term, Float afterScore, Long afterId, int limit) {
+        return record("searchCustomers", () -> delegate.searchCustomers(term, afterScore, afterId, limit));
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        record("insertCustomer", () -> {
+            delegate.insertCustomer(customer);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Long> insertCustomerIfEmailAbsent(Customer customer) {
+        return record("insertCustomerIfEmailAbsent", () -> delegate.insertCustomerIfEmailAbsent(customer),
+                id -> id.isPresent() ? "created" : "conflict");
+    }
+
+    @Override
+    public List<Boolean> insertCustomers(List<Customer> customers) {
+        return record("insertCustomers", () -> delegate.insertCustomers(customers));
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return record("existsPersonWithEmail", () -> delegate.existsPersonWithEmail(email), exists -> exists ? "hit" : "miss");
+    }
+
+    @Override
+    public boolean existsCustomerWithId(Long id) {
+        return record("existsCustomerWithId", () -> delegate.existsCustomerWithId(id), exists -> exists ? "hit" : "miss");
+    }
+
+    @Override
+    public Optional<Customer> deleteCustomerWithId(Long id) {
+        return record("deleteCustomerWithId", () -> delegate.deleteCustomerWithId(id),
+                deleted -> deleted.isPresent() ? "deleted" : "not-found");
+    }
+
+    @Override
+    public List<Customer> deleteCustomersWithIds(Collection<Long> ids) {
+        return record("deleteCustomersWithIds", () -> delegate.deleteCustomersWithIds(ids));
+    }
+
+    @Override
+    public void updateCustomer(Customer update) {
+        record("updateCustomer", () -> {
+            delegate.updateCustomer(update);
+            return null;
+        });
+    }
+
+    @Override
+    public CustomerUpdateResult updateCustomerFields(Long id, String name, String email, Integer age, Long expectedVersion) {
+        return record("updateCustomerFields", () -> delegate.updateCustomerFields(id, name, email, age, expectedVersion),
+                result -> result.status().name().toLowerCase().replace('_', '-'));
+    }
+
+    private <T> T record(String method, Supplier<T> call) {
+        return record(method, call, result -> "success");
+    }
+
+    private <T> T record(String method, Supplier<T> call, Function<T, String> outcome) {
+        long start = System.nanoTime();
+        String recordedOutcome = "error";
+        try {
+            T result = call.get();
+            recordedOutcome = outcome.apply(result);
+            return result;
+        } catch (DataIntegrityViolationException e) {
+            recordedOutcome = "conflict";
+            throw e;
+        } finally {
+            timer(method, recordedOutcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String method, String outcome) {
+        return timers.computeIfAbsent(method + ':' + outcome, key -> Timer.builder(METRIC_NAME)
+                .description("time spent in CustomerDao calls")
+                .tag("method", method)
+                .tag("implementation", implementation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,62 @@
+package com.stefco.webapp.dao.helpers;
+
+import com.stefco.webapp.model.Customer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out customer ids from blocks of {@link Customer#ID_ALLOCATION_SIZE} reserved with a single
+ * {@code nextval}. Uses the same pooled-lo scheme as Hibernate: a sequence value {@code v} owns the
+ * ids {@code v .. v + ID_ALLOCATION_SIZE - 1}, so both DAOs can share customer_id_seq.
+ */
+@Component
+public class CustomerIdAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long next;
+    private long limit;
+
+    public CustomerIdAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long nextId() {
+        return nextIds(1)[0];
+    }
+
+    public long[] nextIds(int count) {
+        long[] ids = new long[count];
+        lock.lock();
+        try {
+            int filled = 0;
+            while (filled < count && next < limit) {
+                ids[filled++] = next++;
+            }
+            if (filled < count) {
+                int blocks = (count - filled + Customer.ID_ALLOCATION_SIZE - 1) / Customer.ID_ALLOCATION_SIZE;
+                for (Long blockStart : reserveBlocks(blocks)) {
+                    next = blockStart;
+                    limit = blockStart + Customer.ID_ALLOCATION_SIZE;
+                    while (filled < count && next < limit) {
+                        ids[filled++] = next++;
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return ids;
+    }
+
+    private List<Long> reserveBlocks(int blocks) {
+        String sql = """
+                SELECT nextval('customer_id_seq')
+                FROM generate_series(1, ?)
+                """;
+        return jdbcTemplate.queryForList(sql, Long.class, blocks);
+    }
+}
@@ -15,7 +15,19 @@ public class CustomerRowMapper implements RowMapper<Customer> {
                 rs.getLong("id"),
                 rs.getString("name"),
                 rs.getString("email"),
-                rs.getInt("age")
+                rs.getInt("age"),
+                rs.getLong("version")
         );
     }
+
+    // maps the same columns, but looks their positions up once per result set; one per query
+    public RowMapper<Customer> forQuery() {
+        return new IndexedRowMapper<>((rs, index) -> new Customer(
+                rs.getLong(index[0]),
+                rs.getString(index[1]),
+                rs.getString(index[2]),
+                rs.getInt(index[3]),
+                rs.getLong(index[4])
+        ), "id", "name", "email", "age", "version");
+    }
 }
@@ -0,0 +1,51 @@
+package com.stefco.webapp.dao.helpers;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Row mapper that reads columns by index instead of by label. The indexes of the declared columns
+ * are resolved with {@link ResultSet#findColumn} the first time a {@link ResultSet} is seen and reused
+ * for its remaining rows. A declared column missing from the result set fails the query with the
+ * driver's {@link SQLException} rather than mapping to null.
+ * <p>
+ * An instance remembers the result set it is walking, so it belongs to one query on one thread:
+ * create it per query instead of sharing it.
+ */
+public final class IndexedRowMapper<T> implements RowMapper<T> {
+
+    @FunctionalInterface
+    public interface IndexedRowReader<T> {
+        // index[i] is the 1-based position of the i-th declared column
+        T read(ResultSet rs, int[] index) throws SQLException;
+    }
+
+    private final IndexedRowReader<T> reader;
+    private final String[] columns;
+    private ResultSet resultSet;
+    private int[] index;
+
+    public IndexedRowMapper(IndexedRowReader<T> reader, String... columns) {
+        this.reader = reader;
+        this.columns = columns.clone();
+    }
+
+    @Override
+    public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (rs != resultSet) {
+            index = resolve(rs);
+            resultSet = rs;
+        }
+        return reader.read(rs, index);
+    }
+
+    private int[] resolve(ResultSet rs) throws SQLException {
+        int[] resolved = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            resolved[i] = rs.findColumn(columns[i]);
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,55 @@
+package com.stefco.webapp.dao.helpers;
+
+import com.stefco.webapp.model.Customer;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The R2DBC counterpart of {@link CustomerIdAllocator}: the same pooled-lo blocks of
+ * {@link Customer#ID_ALLOCATION_SIZE} ids on customer_id_seq, reserved without blocking. Callers that
+ * find the block used up at the same moment each reserve one. Only one of them replaces it, the others
+ * use just their first id, which leaves gaps but never hands out an id twice.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveCustomerIdAllocator {
+
+    private final DatabaseClient databaseClient;
+    private final AtomicReference<Block> block = new AtomicReference<>(new Block(0, 0));
+
+    public ReactiveCustomerIdAllocator(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Long> nextId() {
+        return Mono.defer(() -> {
+            Block current = block.get();
+            long id = current.next().getAndIncrement();
+            if (id < current.limit()) {
+                return Mono.just(id);
+            }
+            return reserveBlock().map(blockStart -> {
+                // the first id goes to this caller, the block serves everyone else from the second on
+                block.compareAndSet(current, new Block(blockStart + 1, blockStart + Customer.ID_ALLOCATION_SIZE));
+                return blockStart;
+            });
+        });
+    }
+
+    private Mono<Long> reserveBlock() {
+        return databaseClient.sql("SELECT nextval('customer_id_seq')")
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    private record Block(AtomicLong next, long limit) {
+        Block(long next, long limit) {
+            this(new AtomicLong(next), limit);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.stefco.webapp.datasource;
+
+import java.util.function.Supplier;
+
+// Marks the current thread as having to read from the primary, so a client sees its own writes
+// even though the replicas may not have replayed them yet.
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = ThreadLocal.withInitial(() -> false);
+
+    private ReadYourWrites() {
+    }
+
+    public static void pinToPrimary() {
+        PINNED_TO_PRIMARY.set(true);
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED_TO_PRIMARY.get();
+    }
+
+    // runs read pinned to the primary and leaves the pin as it found it, for results that outlive the request
+    public static <T> T onPrimary(Supplier<T> read) {
+        if (isPinnedToPrimary()) {
+            return read.get();
+        }
+        pinToPrimary();
+        try {
+            return read.get();
+        } finally {
+            clear();
+        }
+    }
+
+    public static void clear() {
+        PINNED_TO_PRIMARY.remove();
+    }
+}
@@ -0,0 +1,106 @@
+package com.stefco.webapp.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Periodically measures how far each replica is behind and takes it out of rotation while it lags
+// more than maxLag or cannot be reached.
+public class ReplicaLagMonitor implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    // a replica that has replayed everything it received is not lagging, even if the last commit is old
+    private static final String LAG_MILLIS_SQL = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+            END::bigint
+            """;
+    private static final long UNREACHABLE = -1;
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+    private final Map<String, AtomicLong> lagMillis = new HashMap<>();
+    private ScheduledExecutorService executor;
+
+    public ReplicaLagMonitor(ReplicaRoutingDataSource routingDataSource,
+                             Duration maxLag,
+                             Duration checkInterval,
+                             MeterRegistry meterRegistry) {
+        this.routingDataSource = routingDataSource;
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+        routingDataSource.getReplicas().keySet().forEach(name -> {
+            AtomicLong lag = new AtomicLong();
+            lagMillis.put(name, lag);
+            Gauge.builder("customer.datasource.replica.lag", lag, AtomicLong::get)
+                    .description("replication lag in milliseconds, -1 when the replica cannot be reached")
+                    .baseUnit("milliseconds")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        });
+    }
+
+    public void checkReplicas() {
+        routingDataSource.getReplicas().forEach((name, dataSource) -> {
+            long lag;
+            try {
+                Long measured = new JdbcTemplate(dataSource).queryForObject(LAG_MILLIS_SQL, Long.class);
+                lag = measured == null ? 0 : measured;
+            } catch (DataAccessException e) {
+                log.warn("replica {} cannot be reached: {}", name, e.getMessage());
+                lag = UNREACHABLE;
+            }
+            lagMillis.get(name).set(lag);
+            boolean available = lag != UNREACHABLE && lag <= maxLag.toMillis();
+            routingDataSource.setReplicaAvailable(name, available);
+        });
+    }
+
+    @Override
+    public synchronized void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::checkReplicasQuietly, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    // an exception would cancel the schedule for good
+    private void checkReplicasQuietly() {
+        try {
+            checkReplicas();
+        } catch (RuntimeException e) {
+            log.error("replica lag check failed", e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.stefco.webapp.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends read-only transactions to the available replicas round robin and everything else to the primary.
+// Must sit behind a LazyConnectionDataSourceProxy, otherwise the connection is fetched before the
+// read-only flag of the transaction is known.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    private final Map<String, DataSource> replicas;
+    private final List<String> replicaNames;
+    private final Set<String> unavailableReplicas = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas) {
+        this.replicas = Map.copyOf(replicas);
+        this.replicaNames = List.copyOf(replicas.keySet());
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicaAvailable(String name, boolean available) {
+        if (available) {
+            unavailableReplicas.remove(name);
+        } else {
+            unavailableReplicas.add(name);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadYourWrites.isPinnedToPrimary()) {
+            return PRIMARY;
+        }
+        List<String> available = replicaNames.stream()
+                .filter(name -> !unavailableReplicas.contains(name))
+                .toList();
+        if (available.isEmpty()) {
+            return PRIMARY;
+        }
+        return available.get(Math.floorMod(next.getAndIncrement(), available.size()));
+    }
+}
@@ -0,0 +1,22 @@
+package com.stefco.webapp.dto;
+
+import lombok.*;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class CustomerBatchResult {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE_EMAIL,
+        INVALID
+    }
+
+    // position of the customer in the request body
+    private int index;
+    private String email;
+    private Status status;
+}
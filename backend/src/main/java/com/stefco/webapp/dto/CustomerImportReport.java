@@ -0,0 +1,17 @@
+package com.stefco.webapp.dto;
+
+import lombok.*;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class CustomerImportReport {
+
+    private long inserted;
+    // valid rows whose email already existed or appeared earlier in the input
+    private long duplicates;
+    // rows that could not be parsed or were missing a field
+    private long rejected;
+}
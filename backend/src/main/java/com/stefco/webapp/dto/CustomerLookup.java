@@ -0,0 +1,19 @@
+package com.stefco.webapp.dto;
+
+import com.stefco.webapp.model.Customer;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class CustomerLookup {
+
+    // in the order the ids were requested, each customer once
+    private List<Customer> customers;
+    // requested ids with no customer, in request order
+    private List<Long> missingIds;
+}
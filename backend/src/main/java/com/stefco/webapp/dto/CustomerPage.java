@@ -0,0 +1,18 @@
+package com.stefco.webapp.dto;
+
+import com.stefco.webapp.model.Customer;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class CustomerPage {
+
+    private List<Customer> customers;
+    // id of the last customer on this page, null when there are no more pages
+    private Long nextCursor;
+}
@@ -0,0 +1,19 @@
+package com.stefco.webapp.dto;
+
+import com.stefco.webapp.model.Customer;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class CustomerQueryPage {
+
+    // in the requested order
+    private List<Customer> customers;
+    // opaque position of the last customer on this page, null when there are no more pages
+    private String nextCursor;
+}
@@ -0,0 +1,19 @@
+package com.stefco.webapp.dto;
+
+import com.stefco.webapp.model.Customer;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class CustomerSearchPage {
+
+    // best match first
+    private List<Customer> customers;
+    // opaque position of the last match on this page, null when there are no more matches
+    private String nextCursor;
+}
@@ -0,0 +1,24 @@
+package com.stefco.webapp.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class CustomerStatistics {
+
+    private long total;
+    // null when there are no customers
+    private Integer minAge;
+    private Integer maxAge;
+    private Double averageAge;
+    // customers per age, ascending by age
+    private Map<Integer, Long> ageHistogram;
+    // customers created per period, keyed by the first day of the period
+    private Map<LocalDate, Long> createdPerPeriod;
+}
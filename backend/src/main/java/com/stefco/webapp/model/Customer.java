@@ -1,21 +1,29 @@
 package com.stefco.webapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.annotation.Nullable;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.Objects;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "customer", uniqueConstraints = {@UniqueConstraint(name = "customer_email_unique",columnNames = "email")})
+@DynamicUpdate
+@Table(name = "customer", uniqueConstraints = {@UniqueConstraint(name = Customer.EMAIL_UNIQUE_CONSTRAINT,columnNames = "email")})
 public class Customer {
 
+    // must match the INCREMENT BY of customer_id_seq
+    public static final int ID_ALLOCATION_SIZE = 50;
+    public static final String EMAIL_UNIQUE_CONSTRAINT = "customer_email_unique";
+
     @Id
-    @SequenceGenerator(name = "customer_id_seq", sequenceName = "customer_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "customer_id_seq", sequenceName = "customer_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_id_seq")
     private Long id;
     @Column(nullable = false)
@@ -24,6 +32,19 @@ public class Customer {
     private String email;
     @Column(nullable = false)
     private Integer age;
+    // bumped on every update, served as the ETag of the customer
+    @Version
+    @Column(nullable = false)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Long version;
+
+    public Customer(Long id, String name, String email, Integer age) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.age = age;
+    }
 
     public Customer(String name, String email, Integer age) {
         this.name = name;
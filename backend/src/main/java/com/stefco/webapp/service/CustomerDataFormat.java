@@ -0,0 +1,41 @@
+package com.stefco.webapp.service;
+
+import com.stefco.webapp.service.exception.RequestValidationException;
+import org.springframework.http.MediaType;
+
+import java.util.Arrays;
+
+public enum CustomerDataFormat {
+    NDJSON("ndjson", MediaType.APPLICATION_NDJSON),
+    CSV("csv", new MediaType("text", "csv"));
+
+    private final String extension;
+    private final MediaType mediaType;
+
+    CustomerDataFormat(String extension, MediaType mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static CustomerDataFormat fromName(String name) {
+        return Arrays.stream(values())
+                .filter(format -> format.extension.equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new RequestValidationException(String.format("unsupported format [%s]", name)));
+    }
+
+    public static CustomerDataFormat fromMediaType(MediaType mediaType) {
+        return Arrays.stream(values())
+                .filter(format -> format.mediaType.isCompatibleWith(mediaType))
+                .findFirst()
+                .orElseThrow(() -> new RequestValidationException(String.format("unsupported format [%s]", mediaType)));
+    }
+}
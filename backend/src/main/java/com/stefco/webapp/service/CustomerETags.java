@@ -0,0 +1,70 @@
+package com.stefco.webapp.service;
+
+import com.stefco.webapp.dao.CustomerVersion;
+import com.stefco.webapp.dto.CustomerPage;
+import com.stefco.webapp.model.Customer;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * ETags of the customer resources. A customer's ETag is its version. A page's ETag is a digest of
+ * the id and version of every customer on it plus the next cursor, so inserting, updating or
+ * deleting a customer inside the page changes it.
+ */
+public final class CustomerETags {
+
+    // no customer has this version, so an If-Match that cannot match any ETag maps to it
+    static final long NO_VERSION = -1;
+
+    private CustomerETags() {
+    }
+
+    // the version an If-Match header requires, null when there is no header or it is "*"
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        // If-Match compares strongly, so a weak ETag never matches
+        String etag = ifMatch.trim();
+        if (etag.length() >= 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            etag = etag.substring(1, etag.length() - 1);
+        }
+        try {
+            return Long.parseLong(etag);
+        } catch (NumberFormatException e) {
+            return NO_VERSION;
+        }
+    }
+
+    public static String of(Customer customer) {
+        return String.valueOf(customer.getVersion());
+    }
+
+    public static String of(CustomerPage page) {
+        return of(page.getCustomers().stream()
+                .map(customer -> new CustomerVersion(customer.getId(), customer.getVersion()))
+                .toList(), page.getNextCursor());
+    }
+
+    static String of(List<CustomerVersion> versions, Long nextCursor) {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * (2 * versions.size() + 1));
+        for (CustomerVersion version : versions) {
+            buffer.putLong(version.id()).putLong(version.version() == null ? -1 : version.version());
+        }
+        buffer.putLong(nextCursor == null ? -1 : nextCursor);
+        // 128 bits of SHA-256 are plenty to tell two pages apart
+        return HexFormat.of().formatHex(sha256().digest(buffer.array()), 0, 16);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required on every Java platform", e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.stefco.webapp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stefco.webapp.dao.CustomerDao;
+import com.stefco.webapp.model.Customer;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+@Component
+public class CustomerExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CustomerDao customerDao;
+    private final ObjectMapper objectMapper;
+
+    public CustomerExporter(CustomerDao customerDao, ObjectMapper objectMapper) {
+        this.customerDao = customerDao;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes every customer to {@code out} as it is read from the database cursor,
+     * so memory use does not depend on the size of the table.
+     */
+    public void export(CustomerDataFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        switch (format) {
+            case NDJSON -> writeNdjson(writer);
+            case CSV -> writeCsv(writer);
+        }
+        writer.flush();
+    }
+
+    private void writeNdjson(Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        generator.setRootValueSeparator(null);
+        customerDao.forEachCustomer(customer -> {
+            try {
+                generator.writeObject(customer);
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.flush();
+    }
+
+    private void writeCsv(Writer writer) throws IOException {
+        writer.write("id,name,email,age\n");
+        customerDao.forEachCustomer(customer -> {
+            try {
+                writeCsvRow(writer, customer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static void writeCsvRow(Writer writer, Customer customer) throws IOException {
+        writer.write(String.valueOf(customer.getId()));
+        writer.write(',');
+        writer.write(escapeCsv(customer.getName()));
+        writer.write(',');
+        writer.write(escapeCsv(customer.getEmail()));
+        writer.write(',');
+        writer.write(String.valueOf(customer.getAge()));
+        writer.write('\n');
+    }
+
+    static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
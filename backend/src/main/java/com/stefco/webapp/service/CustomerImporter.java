@@ -0,0 +1,276 @@
+package com.stefco.webapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stefco.webapp.dao.CustomerBulkImporter;
+import com.stefco.webapp.dto.CustomerDto;
+import com.stefco.webapp.dto.CustomerImportReport;
+import com.stefco.webapp.model.Customer;
+import com.stefco.webapp.service.exception.RequestValidationException;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static com.stefco.webapp.dtotomodel.DtoToModelConverter.convertDtoToCustomer;
+
+@Component
+public class CustomerImporter {
+
+    // longer CSV records are rejected, which bounds what an unterminated quoted field can swallow
+    static final int MAX_CSV_RECORD_LENGTH = 8 * 1024;
+
+    private final CustomerBulkImporter customerBulkImporter;
+    private final ObjectMapper objectMapper;
+
+    public CustomerImporter(CustomerBulkImporter customerBulkImporter, ObjectMapper objectMapper) {
+        this.customerBulkImporter = customerBulkImporter;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Parses {@code in} one record at a time and hands the valid ones to the COPY
+     * pipeline, so the whole file is never held in memory.
+     */
+    public CustomerImportReport importCustomers(CustomerDataFormat format, InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        RecordIterator customers = switch (format) {
+            case NDJSON -> new NdjsonIterator(reader);
+            case CSV -> new CsvIterator(reader);
+        };
+        try {
+            CustomerBulkImporter.CopyResult result = customerBulkImporter.importCustomers(customers);
+            return new CustomerImportReport(result.inserted(), result.duplicates(), customers.rejected);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean isValid(CustomerDto customerDto) {
+        return customerDto != null
+                && customerDto.getName() != null
+                && customerDto.getEmail() != null
+                && customerDto.getAge() != null;
+    }
+
+    private abstract static class RecordIterator implements Iterator<Customer> {
+
+        final BufferedReader reader;
+        long rejected;
+        private Customer next;
+        private boolean done;
+
+        RecordIterator(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * @return the next record, {@code null} for a rejected record
+         * @throws EOFException when the input is exhausted
+         */
+        abstract CustomerDto readRecord() throws IOException;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !done) {
+                try {
+                    CustomerDto customerDto = readRecord();
+                    if (isValid(customerDto)) {
+                        next = convertDtoToCustomer(customerDto);
+                    } else {
+                        rejected++;
+                    }
+                } catch (EOFException e) {
+                    done = true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Customer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Customer customer = next;
+            next = null;
+            return customer;
+        }
+
+        String readNonBlankLine() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    throw new EOFException();
+                }
+            } while (line.isBlank());
+            return line;
+        }
+    }
+
+    private class NdjsonIterator extends RecordIterator {
+
+        NdjsonIterator(BufferedReader reader) {
+            super(reader);
+        }
+
+        @Override
+        CustomerDto readRecord() throws IOException {
+            String line = readNonBlankLine();
+            try {
+                return objectMapper.readValue(line, CustomerDto.class);
+            } catch (JsonProcessingException e) {
+                return null;
+            }
+        }
+    }
+
+    private static class CsvIterator extends RecordIterator {
+
+        private int nameColumn = -1;
+        private int emailColumn = -1;
+        private int ageColumn = -1;
+
+        CsvIterator(BufferedReader reader) {
+            super(reader);
+        }
+
+        @Override
+        CustomerDto readRecord() throws IOException {
+            if (nameColumn < 0) {
+                readHeader();
+            }
+            List<String> fields = readCsvRecord();
+            if (fields == null || fields.size() <= Math.max(nameColumn, Math.max(emailColumn, ageColumn))) {
+                return null;
+            }
+            try {
+                return new CustomerDto(
+                        blankToNull(fields.get(nameColumn)),
+                        blankToNull(fields.get(emailColumn)),
+                        Integer.valueOf(fields.get(ageColumn).trim())
+                );
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private void readHeader() throws IOException {
+            List<String> header = readCsvRecord();
+            if (header != null) {
+                for (int i = 0; i < header.size(); i++) {
+                    switch (header.get(i).trim().toLowerCase()) {
+                        case "name" -> nameColumn = i;
+                        case "email" -> emailColumn = i;
+                        case "age" -> ageColumn = i;
+                        default -> { }
+                    }
+                }
+            }
+            if (nameColumn < 0 || emailColumn < 0 || ageColumn < 0) {
+                throw new RequestValidationException("csv header must contain name, email and age columns");
+            }
+        }
+
+        /**
+         * Reads the next non-blank RFC 4180 record. A {@code "} only opens a quoted field at the start of a
+         * field, elsewhere it is an ordinary character, and only a quoted field may span lines.
+         *
+         * @return the fields, {@code null} for a malformed record or one longer than MAX_CSV_RECORD_LENGTH,
+         * in which case the input is skipped to the end of the line the problem was found on
+         * @throws EOFException when the input is exhausted
+         */
+        private List<String> readCsvRecord() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            // a quote inside a quoted field, either the first of an escaped "" or the closing one
+            boolean quoteInQuoted = false;
+            // the quoted field was closed, only a delimiter or the end of the record may follow
+            boolean closed = false;
+            boolean malformed = false;
+            int length = 0;
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (c == '\r') {
+                    continue;
+                }
+                if (++length > MAX_CSV_RECORD_LENGTH) {
+                    malformed = true;
+                    if (c != '\n') {
+                        skipLine();
+                    }
+                    break;
+                }
+                if (quoteInQuoted) {
+                    quoteInQuoted = false;
+                    if (c == '"') {
+                        field.append('"');
+                        continue;
+                    }
+                    quoted = false;
+                    closed = true;
+                }
+                if (quoted) {
+                    if (c == '"') {
+                        quoteInQuoted = true;
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '\n') {
+                    if (fields.isEmpty() && !closed && field.toString().isBlank()) {
+                        // a blank line
+                        field.setLength(0);
+                        length = 0;
+                        continue;
+                    }
+                    break;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    closed = false;
+                } else if (closed) {
+                    if (!Character.isWhitespace(c)) {
+                        malformed = true;
+                        skipLine();
+                        break;
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+            }
+            if (c == -1) {
+                if (fields.isEmpty() && !closed && !quoted && !quoteInQuoted && field.toString().isBlank()) {
+                    throw new EOFException();
+                }
+                // a quoted field still open at the end of the input never ended
+                malformed |= quoted && !quoteInQuoted;
+            }
+            if (malformed) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        private void skipLine() throws IOException {
+            int c;
+            do {
+                c = reader.read();
+            } while (c != -1 && c != '\n');
+        }
+
+        private static String blankToNull(String value) {
+            return value.isBlank() ? null : value;
+        }
+    }
+}
@@ -1,82 +1,311 @@
 package com.stefco.webapp.service;
 
 import com.stefco.webapp.dao.CustomerDao;
+import com.stefco.webapp.dao.CustomerMatch;
+import com.stefco.webapp.dao.CustomerQuery;
+import com.stefco.webapp.dao.CustomerSort;
+import com.stefco.webapp.dao.CustomerUpdateResult;
+import com.stefco.webapp.dao.CustomerVersion;
+import com.stefco.webapp.dto.CustomerBatchResult;
 import com.stefco.webapp.dto.CustomerDto;
+import com.stefco.webapp.dto.CustomerLookup;
+import com.stefco.webapp.dto.CustomerPage;
+import com.stefco.webapp.dto.CustomerQueryPage;
+import com.stefco.webapp.dto.CustomerSearchPage;
 
 import static com.stefco.webapp.dtotomodel.DtoToModelConverter.convertDtoToCustomer;
 
 import com.stefco.webapp.model.Customer;
 import com.stefco.webapp.service.exception.CustomerNotFoundException;
 import com.stefco.webapp.service.exception.DuplicateResourceException;
+import com.stefco.webapp.service.exception.PreconditionFailedException;
 import com.stefco.webapp.service.exception.RequestValidationException;
 import com.stefco.webapp.service.exception.ResourceNotFoundException;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class CustomerService {
 
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 1000;
+    // a trigram index cannot narrow down anything shorter than one trigram
+    public static final int MIN_SEARCH_TERM_LENGTH = 3;
+    public static final int MAX_SEARCH_TERM_LENGTH = 100;
+    // a JPA update loses its version check when another update commits between its read and write
+    static final int MAX_UPDATE_ATTEMPTS = 3;
+
     private final CustomerDao customerDao;
 
-    public CustomerService(@Qualifier("jdbc") CustomerDao customerDao) {
+    public CustomerService(CustomerDao customerDao) {
         this.customerDao = customerDao;
     }
 
-    public List<Customer> getAllCustomers() {
-        return customerDao.selectAllCustomers();
+    public CustomerPage getCustomers(Long cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+
+        // fetch one extra row so we know whether another page exists without a count query
+        List<Customer> customers = customerDao.selectCustomers(cursor, pageSize + 1);
+        if (customers.size() <= pageSize) {
+            return new CustomerPage(customers, null);
+        }
+
+        List<Customer> page = customers.subList(0, pageSize);
+        return new CustomerPage(page, page.get(pageSize - 1).getId());
+    }
+
+    // the ETag getCustomers would send for this page, computed from ids and versions only
+    public String getCustomersETag(Long cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+
+        List<CustomerVersion> versions = customerDao.selectCustomerVersions(cursor, pageSize + 1);
+        if (versions.size() <= pageSize) {
+            return CustomerETags.of(versions, null);
+        }
+
+        List<CustomerVersion> page = versions.subList(0, pageSize);
+        return CustomerETags.of(page, page.get(pageSize - 1).id());
+    }
+
+    // sort is id, name or age and order asc or desc; blank filters are not applied
+    public CustomerQueryPage queryCustomers(Integer minAge, Integer maxAge, String email, String namePrefix,
+                                            String sort, String order, String cursor, Integer limit) {
+        if ((minAge != null && minAge < 0) || (maxAge != null && maxAge < 0)
+                || (minAge != null && maxAge != null && minAge > maxAge)) {
+            throw new RequestValidationException("age range must be non-negative with minAge not above maxAge");
+        }
+        CustomerSort customerSort = parseSort(sort == null ? "id" : sort);
+        boolean descending = switch (order == null ? "asc" : order.toLowerCase(Locale.ROOT)) {
+            case "asc" -> false;
+            case "desc" -> true;
+            default -> throw new RequestValidationException(String.format("order must be asc or desc but was [%s]", order));
+        };
+        CustomerQuery query = new CustomerQuery(minAge, maxAge, blankToNull(email), blankToNull(namePrefix),
+                customerSort, descending);
+        int pageSize = pageSize(limit);
+        Customer after = cursor == null ? null : decodeQueryCursor(customerSort, cursor);
+
+        // fetch one extra row so we know whether another page exists without a count query
+        List<Customer> customers = customerDao.selectCustomers(query, after, pageSize + 1);
+        if (customers.size() <= pageSize) {
+            return new CustomerQueryPage(customers, null);
+        }
+        List<Customer> page = customers.subList(0, pageSize);
+        return new CustomerQueryPage(page, encodeQueryCursor(customerSort, page.get(pageSize - 1)));
+    }
+
+    // the sort value and id of the last customer, base64 so names need no escaping in a URL
+    private static String encodeQueryCursor(CustomerSort sort, Customer last) {
+        String position = sort.key(last) + ":" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Customer decodeQueryCursor(CustomerSort sort, String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // names may contain the separator, ids never do
+            int separator = position.lastIndexOf(':');
+            String key = position.substring(0, separator);
+            Long id = Long.parseLong(position.substring(separator + 1));
+            return switch (sort) {
+                case ID -> new Customer(id, null, null, null);
+                case NAME -> new Customer(id, key, null, null);
+                case AGE -> new Customer(id, null, null, Integer.parseInt(key));
+            };
+        } catch (RuntimeException e) {
+            throw new RequestValidationException(String.format("invalid cursor [%s]", cursor));
+        }
+    }
+
+    private static CustomerSort parseSort(String sort) {
+        try {
+            return CustomerSort.valueOf(sort.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException(String.format("sort must be id, name or age but was [%s]", sort));
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    public CustomerSearchPage searchCustomers(String query, String cursor, Integer limit) {
+        String term = query == null ? "" : query.strip();
+        if (term.length() < MIN_SEARCH_TERM_LENGTH || term.length() > MAX_SEARCH_TERM_LENGTH) {
+            throw new RequestValidationException(String.format("search term must be between %s and %s characters",
+                    MIN_SEARCH_TERM_LENGTH, MAX_SEARCH_TERM_LENGTH));
+        }
+        int pageSize = pageSize(limit);
+
+        // the cursor is "score:id" of the last match of the previous page
+        Float afterScore = null;
+        Long afterId = null;
+        if (cursor != null) {
+            int separator = cursor.indexOf(':');
+            try {
+                afterScore = Float.parseFloat(cursor.substring(0, separator));
+                afterId = Long.parseLong(cursor.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new RequestValidationException(String.format("invalid cursor [%s]", cursor));
+            }
+        }
+
+        List<CustomerMatch> matches = customerDao.searchCustomers(term, afterScore, afterId, pageSize + 1);
+        List<Customer> customers = matches.stream().limit(pageSize).map(CustomerMatch::customer).toList();
+        if (matches.size() <= pageSize) {
+            return new CustomerSearchPage(customers, null);
+        }
+        CustomerMatch last = matches.get(pageSize - 1);
+        return new CustomerSearchPage(customers, last.score() + ":" + last.customer().getId());
+    }
+
+    private static int pageSize(Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new RequestValidationException(String.format("limit must be between 1 and %s", MAX_PAGE_SIZE));
+        }
+        return pageSize;
     }
 
     public Customer getCustomer(Long id) {
         return customerDao.selectCustomerById(id).orElseThrow(() -> new ResourceNotFoundException(String.format("customer with id [%s] not found",id)));
     }
 
-    public void addCustomer(CustomerDto customerDto) {
+    public CustomerLookup getCustomersByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_BATCH_SIZE || ids.stream().anyMatch(Objects::isNull)) {
+            throw new RequestValidationException(String.format("batch must contain between 1 and %s ids", MAX_BATCH_SIZE));
+        }
 
-        if (customerDao.existsPersonWithEmail(customerDto.getEmail())) {
-            throw new DuplicateResourceException("Email already taken");
+        Map<Long, Customer> found = new HashMap<>();
+        for (Customer customer : customerDao.selectCustomersByIds(new LinkedHashSet<>(ids))) {
+            found.put(customer.getId(), customer);
         }
 
-        customerDao.insertCustomer(convertDtoToCustomer(customerDto));
-    };
+        Set<Long> seen = new HashSet<>();
+        List<Customer> customers = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            if (!seen.add(id)) {
+                continue;
+            }
+            Customer customer = found.get(id);
+            if (customer == null) {
+                missingIds.add(id);
+            } else {
+                customers.add(customer);
+            }
+        }
+        return new CustomerLookup(customers, missingIds);
+    }
 
-    public void deleteCustomer(Long id) {
-        if (!customerDao.existsCustomerWithId(id)){
-            throw new CustomerNotFoundException(String.format("customer with id [%s] not found",id));
-        };
-        customerDao.deleteCustomerWithId(id);
+    public Long getCustomerVersion(Long id) {
+        return customerDao.selectCustomerVersion(id).orElseThrow(() -> new ResourceNotFoundException(String.format("customer with id [%s] not found",id)));
     }
 
-    public void updateCustomer(Long id, CustomerDto customerDto) {
-        Customer oldCustomer = getCustomer(id);
+    public void addCustomer(CustomerDto customerDto) {
+        // the unique email constraint decides, so concurrent requests with the same email cannot both pass
+        if (customerDao.insertCustomerIfEmailAbsent(convertDtoToCustomer(customerDto)).isEmpty()) {
+            throw new DuplicateResourceException("Email already taken");
+        }
+    };
+
+    public List<CustomerBatchResult> addCustomers(List<CustomerDto> customerDtos) {
+        if (customerDtos == null || customerDtos.isEmpty() || customerDtos.size() > MAX_BATCH_SIZE) {
+            throw new RequestValidationException(String.format("batch must contain between 1 and %s customers", MAX_BATCH_SIZE));
+        }
 
-        boolean changed = false;
+        CustomerBatchResult[] results = new CustomerBatchResult[customerDtos.size()];
+        List<Integer> indexes = new ArrayList<>(customerDtos.size());
+        List<Customer> customers = new ArrayList<>(customerDtos.size());
 
-        if (customerDto.getName() != null && !customerDto.getName().equals(oldCustomer.getName())) {
-            oldCustomer.setName(customerDto.getName());
-            changed = true;
+        for (int i = 0; i < customerDtos.size(); i++) {
+            CustomerDto customerDto = customerDtos.get(i);
+            if (customerDto == null || customerDto.getName() == null || customerDto.getEmail() == null || customerDto.getAge() == null) {
+                results[i] = new CustomerBatchResult(i, customerDto == null ? null : customerDto.getEmail(), CustomerBatchResult.Status.INVALID);
+                continue;
+            }
+            indexes.add(i);
+            customers.add(convertDtoToCustomer(customerDto));
         }
 
-        if (customerDto.getEmail() != null && !customerDto.getEmail().equals(oldCustomer.getEmail())) {
-            if (customerDao.existsPersonWithEmail(customerDto.getEmail())) {
-                throw new DuplicateResourceException("email already taken");
+        if (!customers.isEmpty()) {
+            List<Boolean> inserted = customerDao.insertCustomers(customers);
+            for (int i = 0; i < customers.size(); i++) {
+                results[indexes.get(i)] = new CustomerBatchResult(
+                        indexes.get(i),
+                        customers.get(i).getEmail(),
+                        inserted.get(i) ? CustomerBatchResult.Status.CREATED : CustomerBatchResult.Status.DUPLICATE_EMAIL
+                );
             }
-            oldCustomer.setEmail(customerDto.getEmail());
-            changed = true;
         }
 
-        if (customerDto.getAge() != null && !customerDto.getAge().equals(oldCustomer.getAge())) {
-            oldCustomer.setAge(customerDto.getAge());
-            changed = true;
+        return Arrays.asList(results);
+    }
+
+    public void deleteCustomer(Long id) {
+        if (customerDao.deleteCustomerWithId(id).isEmpty()) {
+            throw new CustomerNotFoundException(String.format("customer with id [%s] not found",id));
+        }
+    }
+
+    public List<Long> deleteCustomers(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            throw new RequestValidationException(String.format("batch must contain between 1 and %s ids", MAX_BATCH_SIZE));
         }
+        return customerDao.deleteCustomersWithIds(ids).stream()
+                .map(Customer::getId)
+                .toList();
+    }
 
-        if (!changed) {
-            throw new RequestValidationException("no data changed found");
+    // expectedVersion comes from If-Match; without one the update applies to whatever version is current
+    public Customer updateCustomer(Long id, CustomerDto customerDto, Long expectedVersion) {
+        CustomerUpdateResult result = null;
+        for (int attempt = 1; result == null; attempt++) {
+            try {
+                result = customerDao.updateCustomerFields(id, customerDto.getName(), customerDto.getEmail(), customerDto.getAge(), expectedVersion);
+            } catch (DataIntegrityViolationException e) {
+                if (isEmailTaken(e)) {
+                    throw new DuplicateResourceException("email already taken");
+                }
+                throw e;
+            } catch (OptimisticLockingFailureException e) {
+                if (expectedVersion != null) {
+                    throw new PreconditionFailedException(String.format("customer with id [%s] has changed",id));
+                }
+                if (attempt == MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+            }
         }
 
-        customerDao.updateCustomer(oldCustomer);
+        return switch (result.status()) {
+            case NOT_FOUND -> throw new ResourceNotFoundException(String.format("customer with id [%s] not found",id));
+            case UNCHANGED -> throw new RequestValidationException("no data changed found");
+            case VERSION_CONFLICT -> throw new PreconditionFailedException(String.format("customer with id [%s] has changed",id));
+            case UPDATED -> result.customer();
+        };
+    }
 
+    // only the email unique constraint is a conflict the client can resolve, other violations stay server errors
+    static boolean isEmailTaken(DataIntegrityViolationException e) {
+        String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        return message != null && message.contains(Customer.EMAIL_UNIQUE_CONSTRAINT);
     }
 }
@@ -0,0 +1,63 @@
+package com.stefco.webapp.service;
+
+import com.stefco.webapp.service.exception.CustomerNotFoundException;
+import com.stefco.webapp.service.exception.DuplicateResourceException;
+import com.stefco.webapp.service.exception.PreconditionFailedException;
+import com.stefco.webapp.service.exception.RequestValidationException;
+import com.stefco.webapp.service.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+// Times every public CustomerService operation as customer.service, with the outcome derived from
+// the exception the operation ends with.
+@Aspect
+@Component
+public class CustomerServiceMetrics {
+
+    static final String METRIC_NAME = "customer.service";
+
+    private final MeterRegistry meterRegistry;
+
+    public CustomerServiceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.stefco.webapp.service.CustomerService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .description("time spent in CustomerService operations")
+                    .tag("operation", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String outcomeOf(Throwable e) {
+        if (e instanceof ResourceNotFoundException || e instanceof CustomerNotFoundException) {
+            return "not-found";
+        }
+        if (e instanceof DuplicateResourceException) {
+            return "conflict";
+        }
+        if (e instanceof RequestValidationException) {
+            return "invalid";
+        }
+        if (e instanceof PreconditionFailedException) {
+            return "precondition-failed";
+        }
+        return "error";
+    }
+}
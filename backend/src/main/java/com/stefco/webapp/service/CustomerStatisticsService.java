@@ -0,0 +1,63 @@
+package com.stefco.webapp.service;
+
+import com.stefco.webapp.dao.CustomerStatisticsDao;
+import com.stefco.webapp.dto.CustomerStatistics;
+import com.stefco.webapp.service.exception.RequestValidationException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Map;
+
+@Service
+public class CustomerStatisticsService {
+
+    public static final int DEFAULT_CREATED_DAYS = 30;
+    // keeps the per-period map bounded, a day granularity over this many days is still a small response
+    public static final int MAX_CREATED_DAYS = 3660;
+
+    private final CustomerStatisticsDao customerStatisticsDao;
+
+    public CustomerStatisticsService(CustomerStatisticsDao customerStatisticsDao) {
+        this.customerStatisticsDao = customerStatisticsDao;
+    }
+
+    // period is day, week or month; creations are counted from `from` (default DEFAULT_CREATED_DAYS ago)
+    // up to and including `to` (default today, UTC)
+    public CustomerStatistics getStatistics(String period, LocalDate from, LocalDate to) {
+        CustomerStatisticsDao.Period createdPeriod = parsePeriod(period == null ? "day" : period);
+        LocalDate last = to == null ? LocalDate.now(ZoneOffset.UTC) : to;
+        LocalDate first = from == null ? last.minusDays(DEFAULT_CREATED_DAYS - 1) : from;
+        if (first.isAfter(last) || ChronoUnit.DAYS.between(first, last) >= MAX_CREATED_DAYS) {
+            throw new RequestValidationException(String.format(
+                    "from must not be after to and the range must span at most %s days", MAX_CREATED_DAYS));
+        }
+
+        // total, bounds and average all follow from the histogram, which has one entry per distinct age
+        Map<Integer, Long> histogram = customerStatisticsDao.selectAgeHistogram();
+        long total = 0;
+        long ageSum = 0;
+        Integer minAge = null;
+        Integer maxAge = null;
+        for (Map.Entry<Integer, Long> ageCount : histogram.entrySet()) {
+            total += ageCount.getValue();
+            ageSum += ageCount.getKey() * ageCount.getValue();
+            minAge = minAge == null ? ageCount.getKey() : Math.min(minAge, ageCount.getKey());
+            maxAge = maxAge == null ? ageCount.getKey() : Math.max(maxAge, ageCount.getKey());
+        }
+        Double averageAge = total == 0 ? null : (double) ageSum / total;
+
+        return new CustomerStatistics(total, minAge, maxAge, averageAge, histogram,
+                customerStatisticsDao.selectCreatedCounts(createdPeriod, first, last.plusDays(1)));
+    }
+
+    private static CustomerStatisticsDao.Period parsePeriod(String period) {
+        try {
+            return CustomerStatisticsDao.Period.valueOf(period.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException(String.format("period must be day, week or month but was [%s]", period));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.stefco.webapp.service;
+
+import com.stefco.webapp.dao.CustomerVersion;
+import com.stefco.webapp.dao.ReactiveCustomerDao;
+import com.stefco.webapp.dto.CustomerDto;
+import com.stefco.webapp.dto.CustomerPage;
+import com.stefco.webapp.model.Customer;
+import com.stefco.webapp.service.exception.CustomerNotFoundException;
+import com.stefco.webapp.service.exception.DuplicateResourceException;
+import com.stefco.webapp.service.exception.PreconditionFailedException;
+import com.stefco.webapp.service.exception.RequestValidationException;
+import com.stefco.webapp.service.exception.ResourceNotFoundException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.stefco.webapp.dtotomodel.DtoToModelConverter.convertDtoToCustomer;
+import static com.stefco.webapp.service.CustomerService.DEFAULT_PAGE_SIZE;
+import static com.stefco.webapp.service.CustomerService.MAX_PAGE_SIZE;
+
+// Non-blocking counterpart of CustomerService with the same rules and error messages.
+@Service
+@Profile("reactive")
+public class ReactiveCustomerService {
+
+    private final ReactiveCustomerDao customerDao;
+
+    public ReactiveCustomerService(ReactiveCustomerDao customerDao) {
+        this.customerDao = customerDao;
+    }
+
+    public Mono<CustomerPage> getCustomers(Long cursor, Integer limit) {
+        // fetch one extra row so we know whether another page exists without a count query
+        return pageSize(limit).flatMap(pageSize -> customerDao.selectCustomers(cursor, pageSize + 1)
+                .collectList()
+                .map(customers -> {
+                    if (customers.size() <= pageSize) {
+                        return new CustomerPage(customers, null);
+                    }
+                    List<Customer> page = customers.subList(0, pageSize);
+                    return new CustomerPage(page, page.get(pageSize - 1).getId());
+                }));
+    }
+
+    // the ETag getCustomers would send for this page, computed from ids and versions only
+    public Mono<String> getCustomersETag(Long cursor, Integer limit) {
+        return pageSize(limit).flatMap(pageSize -> customerDao.selectCustomerVersions(cursor, pageSize + 1)
+                .collectList()
+                .map(versions -> {
+                    if (versions.size() <= pageSize) {
+                        return CustomerETags.of(versions, null);
+                    }
+                    List<CustomerVersion> page = versions.subList(0, pageSize);
+                    return CustomerETags.of(page, page.get(pageSize - 1).id());
+                }));
+    }
+
+    private static Mono<Integer> pageSize(Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return Mono.error(new RequestValidationException(String.format("limit must be between 1 and %s", MAX_PAGE_SIZE)));
+        }
+        return Mono.just(pageSize);
+    }
+
+    public Flux<Customer> streamCustomers() {
+        return customerDao.streamAllCustomers();
+    }
+
+    public Mono<Customer> getCustomer(Long id) {
+        return customerDao.selectCustomerById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(String.format("customer with id [%s] not found",id))));
+    }
+
+    public Mono<Long> getCustomerVersion(Long id) {
+        return customerDao.selectCustomerVersion(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(String.format("customer with id [%s] not found",id))));
+    }
+
+    public Mono<Void> addCustomer(CustomerDto customerDto) {
+        return customerDao.insertCustomerIfEmailAbsent(convertDtoToCustomer(customerDto))
+                .switchIfEmpty(Mono.error(() -> new DuplicateResourceException("Email already taken")))
+                .then();
+    }
+
+    public Mono<Void> deleteCustomer(Long id) {
+        return customerDao.deleteCustomerWithId(id)
+                .switchIfEmpty(Mono.error(() -> new CustomerNotFoundException(String.format("customer with id [%s] not found",id))))
+                .then();
+    }
+
+    public Mono<Customer> updateCustomer(Long id, CustomerDto customerDto, Long expectedVersion) {
+        return customerDao.updateCustomerFields(id, customerDto.getName(), customerDto.getEmail(), customerDto.getAge(), expectedVersion)
+                .onErrorMap(e -> e instanceof DataIntegrityViolationException violation && CustomerService.isEmailTaken(violation),
+                        e -> new DuplicateResourceException("email already taken"))
+                .flatMap(result -> switch (result.status()) {
+                    case NOT_FOUND -> Mono.error(new ResourceNotFoundException(String.format("customer with id [%s] not found",id)));
+                    case UNCHANGED -> Mono.error(new RequestValidationException("no data changed found"));
+                    case VERSION_CONFLICT -> Mono.error(new PreconditionFailedException(String.format("customer with id [%s] has changed",id)));
+                    case UPDATED -> Mono.just(result.customer());
+                });
+    }
+}
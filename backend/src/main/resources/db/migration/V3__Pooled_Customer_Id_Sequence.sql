@@ -0,0 +1,2 @@
+-- ids are handed out in blocks of Customer.ID_ALLOCATION_SIZE by both DAOs (pooled-lo)
+ALTER SEQUENCE customer_id_seq INCREMENT BY 50;
@@ -0,0 +1,2 @@
+-- incremented by every update, used as the ETag of a customer
+ALTER TABLE customer ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,4 @@
+-- trigram indexes answer the fuzzy and partial matches of the customer search without a full scan
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX customer_name_trgm_idx ON customer USING gin (name gin_trgm_ops);
+CREATE INDEX customer_email_trgm_idx ON customer USING gin (email gin_trgm_ops);
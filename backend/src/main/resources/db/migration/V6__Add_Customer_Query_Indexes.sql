@@ -0,0 +1,5 @@
+-- keyset listings ordered by age or name walk these in order; id breaks ties and makes every position unique
+CREATE INDEX customer_age_id_idx ON customer (age, id);
+CREATE INDEX customer_name_id_idx ON customer (name, id);
+-- name prefix filters: a LIKE 'prefix%' only uses a btree with pattern ops under a non-C collation
+CREATE INDEX customer_name_pattern_idx ON customer (name text_pattern_ops);
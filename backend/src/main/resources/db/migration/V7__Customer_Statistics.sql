@@ -0,0 +1,85 @@
+-- when the customer was created; rows that existed before this migration count as created now
+ALTER TABLE customer ADD COLUMN created_at TIMESTAMPTZ NOT NULL DEFAULT now();
+
+-- Summaries kept current by the triggers below, so statistics never scan customer. Each backend adds its
+-- deltas to its own slot, concurrent writers would otherwise queue on the same counter row until commit;
+-- a value is the sum over all slots of its key.
+CREATE TABLE customer_age_count (
+    age INT NOT NULL,
+    slot INT NOT NULL,
+    customers BIGINT NOT NULL,
+    PRIMARY KEY (age, slot)
+);
+
+-- customers created per UTC day; deletes do not take creations back
+CREATE TABLE customer_created_count (
+    day DATE NOT NULL,
+    slot INT NOT NULL,
+    customers BIGINT NOT NULL,
+    PRIMARY KEY (day, slot)
+);
+
+INSERT INTO customer_age_count (age, slot, customers)
+SELECT age, 0, count(*) FROM customer GROUP BY age;
+
+INSERT INTO customer_created_count (day, slot, customers)
+SELECT (created_at AT TIME ZONE 'UTC')::date, 0, count(*) FROM customer GROUP BY 1;
+
+-- statement-level with transition tables: a batch or COPY updates each counter once, not once per row
+CREATE FUNCTION customer_statistics_insert() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO customer_age_count AS c (age, slot, customers)
+    SELECT age, pg_backend_pid() % 16, count(*) FROM new_rows GROUP BY age
+    ON CONFLICT (age, slot) DO UPDATE SET customers = c.customers + EXCLUDED.customers;
+
+    INSERT INTO customer_created_count AS c (day, slot, customers)
+    SELECT (created_at AT TIME ZONE 'UTC')::date, pg_backend_pid() % 16, count(*) FROM new_rows GROUP BY 1
+    ON CONFLICT (day, slot) DO UPDATE SET customers = c.customers + EXCLUDED.customers;
+    RETURN NULL;
+END;
+$$;
+
+-- fires for every update, a trigger with transition tables cannot be limited to the age column;
+-- updates that leave every age as it was write nothing
+CREATE FUNCTION customer_statistics_update() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO customer_age_count AS c (age, slot, customers)
+    SELECT age, pg_backend_pid() % 16, sum(delta)
+    FROM (SELECT age, 1 AS delta FROM new_rows UNION ALL SELECT age, -1 FROM old_rows) changes
+    GROUP BY age
+    HAVING sum(delta) <> 0
+    ON CONFLICT (age, slot) DO UPDATE SET customers = c.customers + EXCLUDED.customers;
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION customer_statistics_delete() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO customer_age_count AS c (age, slot, customers)
+    SELECT age, pg_backend_pid() % 16, -count(*) FROM old_rows GROUP BY age
+    ON CONFLICT (age, slot) DO UPDATE SET customers = c.customers + EXCLUDED.customers;
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION customer_statistics_truncate() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    DELETE FROM customer_age_count;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER customer_statistics_insert AFTER INSERT ON customer
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_statistics_insert();
+
+CREATE TRIGGER customer_statistics_update AFTER UPDATE ON customer
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_statistics_update();
+
+CREATE TRIGGER customer_statistics_delete AFTER DELETE ON customer
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_statistics_delete();
+
+CREATE TRIGGER customer_statistics_truncate AFTER TRUNCATE ON customer
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_statistics_truncate();
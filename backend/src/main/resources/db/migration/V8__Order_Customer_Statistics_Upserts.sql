@@ -0,0 +1,37 @@
+-- Backends whose pids share a slot upsert the same counter rows, and each upsert keeps its row locks until
+-- commit. Taking them in key order, not in whatever order the aggregate emits its groups, means two such
+-- statements can wait on each other but never deadlock.
+CREATE OR REPLACE FUNCTION customer_statistics_insert() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO customer_age_count AS c (age, slot, customers)
+    SELECT age, pg_backend_pid() % 16, count(*) FROM new_rows GROUP BY age ORDER BY age
+    ON CONFLICT (age, slot) DO UPDATE SET customers = c.customers + EXCLUDED.customers;
+
+    INSERT INTO customer_created_count AS c (day, slot, customers)
+    SELECT (created_at AT TIME ZONE 'UTC')::date, pg_backend_pid() % 16, count(*) FROM new_rows GROUP BY 1 ORDER BY 1
+    ON CONFLICT (day, slot) DO UPDATE SET customers = c.customers + EXCLUDED.customers;
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION customer_statistics_update() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO customer_age_count AS c (age, slot, customers)
+    SELECT age, pg_backend_pid() % 16, sum(delta)
+    FROM (SELECT age, 1 AS delta FROM new_rows UNION ALL SELECT age, -1 FROM old_rows) changes
+    GROUP BY age
+    HAVING sum(delta) <> 0
+    ORDER BY age
+    ON CONFLICT (age, slot) DO UPDATE SET customers = c.customers + EXCLUDED.customers;
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION customer_statistics_delete() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO customer_age_count AS c (age, slot, customers)
+    SELECT age, pg_backend_pid() % 16, -count(*) FROM old_rows GROUP BY age ORDER BY age
+    ON CONFLICT (age, slot) DO UPDATE SET customers = c.customers + EXCLUDED.customers;
+    RETURN NULL;
+END;
+$$;
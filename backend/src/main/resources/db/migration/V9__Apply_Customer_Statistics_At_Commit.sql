@@ -0,0 +1,104 @@
+-- V8 only ordered the counter upserts within one statement. An upsert keeps its row locks until commit, so a
+-- transaction of several statements, such as a batch sent in chunks or Hibernate's one insert per entity, still
+-- took them statement by statement, and two transactions sharing a slot could deadlock. The triggers now only
+-- stage their deltas for the transaction; a deferred trigger applies them to the counters once, at commit.
+
+-- rows never outlive their transaction, so there is nothing to lose in a crash
+CREATE UNLOGGED TABLE customer_statistics_delta (
+    xid BIGINT NOT NULL,
+    age INT,
+    day DATE,
+    customers BIGINT NOT NULL
+);
+
+CREATE INDEX customer_statistics_delta_xid ON customer_statistics_delta (xid);
+
+-- one row per transaction with staged deltas, it queues the single deferred flush; statements that stage
+-- nothing, like an insert whose rows were all skipped as duplicates, do not queue one
+CREATE UNLOGGED TABLE customer_statistics_pending (
+    xid BIGINT PRIMARY KEY
+);
+
+CREATE OR REPLACE FUNCTION customer_statistics_insert() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO customer_statistics_delta (xid, age, customers)
+    SELECT txid_current(), age, count(*) FROM new_rows GROUP BY age;
+
+    INSERT INTO customer_statistics_delta (xid, day, customers)
+    SELECT txid_current(), (created_at AT TIME ZONE 'UTC')::date, count(*) FROM new_rows GROUP BY 2;
+
+    IF FOUND THEN
+        INSERT INTO customer_statistics_pending (xid) VALUES (txid_current()) ON CONFLICT DO NOTHING;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION customer_statistics_update() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO customer_statistics_delta (xid, age, customers)
+    SELECT txid_current(), age, sum(delta)
+    FROM (SELECT age, 1 AS delta FROM new_rows UNION ALL SELECT age, -1 FROM old_rows) changes
+    GROUP BY age
+    HAVING sum(delta) <> 0;
+
+    IF FOUND THEN
+        INSERT INTO customer_statistics_pending (xid) VALUES (txid_current()) ON CONFLICT DO NOTHING;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION customer_statistics_delete() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO customer_statistics_delta (xid, age, customers)
+    SELECT txid_current(), age, -count(*) FROM old_rows GROUP BY age;
+
+    IF FOUND THEN
+        INSERT INTO customer_statistics_pending (xid) VALUES (txid_current()) ON CONFLICT DO NOTHING;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+-- ages staged before the truncate are gone with the rows they counted; lock the counters in key order
+-- like a flush does before removing them
+CREATE OR REPLACE FUNCTION customer_statistics_truncate() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    DELETE FROM customer_statistics_delta WHERE xid = txid_current() AND age IS NOT NULL;
+    PERFORM 1 FROM customer_age_count ORDER BY age, slot FOR UPDATE;
+    DELETE FROM customer_age_count;
+    RETURN NULL;
+END;
+$$;
+
+-- Every transaction takes its counter row locks here and only here: ages then days, each in key order, in one
+-- statement per table right before commit. Two flushes can wait on each other but never in a cycle.
+CREATE FUNCTION customer_statistics_flush() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO customer_age_count AS c (age, slot, customers)
+    SELECT age, pg_backend_pid() % 16, sum(customers)
+    FROM customer_statistics_delta
+    WHERE xid = NEW.xid AND age IS NOT NULL
+    GROUP BY age
+    HAVING sum(customers) <> 0
+    ORDER BY age
+    ON CONFLICT (age, slot) DO UPDATE SET customers = c.customers + EXCLUDED.customers;
+
+    INSERT INTO customer_created_count AS c (day, slot, customers)
+    SELECT day, pg_backend_pid() % 16, sum(customers)
+    FROM customer_statistics_delta
+    WHERE xid = NEW.xid AND day IS NOT NULL
+    GROUP BY day
+    ORDER BY day
+    ON CONFLICT (day, slot) DO UPDATE SET customers = c.customers + EXCLUDED.customers;
+
+    DELETE FROM customer_statistics_delta WHERE xid = NEW.xid;
+    DELETE FROM customer_statistics_pending WHERE xid = NEW.xid;
+    RETURN NULL;
+END;
+$$;
+
+CREATE CONSTRAINT TRIGGER customer_statistics_flush AFTER INSERT ON customer_statistics_pending
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW EXECUTE FUNCTION customer_statistics_flush();
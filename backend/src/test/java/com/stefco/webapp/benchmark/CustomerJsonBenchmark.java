@@ -0,0 +1,42 @@
+package com.stefco.webapp.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.stefco.webapp.model.Customer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serializes a page of customers the way the controller responses do, for the page sizes we serve.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CustomerJsonBenchmark {
+
+    @Param({"1", "50", "1000"})
+    private int size;
+
+    private ObjectWriter writer;
+    private List<Customer> customers;
+
+    @Setup
+    public void setUp() {
+        writer = new ObjectMapper().writerFor(new TypeReference<List<Customer>>() { });
+        customers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            customers.add(new Customer((long) i, "Customer " + i, "customer" + i + "@gmail.com", 16 + i % 80));
+        }
+    }
+
+    @Benchmark
+    public byte[] writeCustomers() throws JsonProcessingException {
+        return writer.writeValueAsBytes(customers);
+    }
+}
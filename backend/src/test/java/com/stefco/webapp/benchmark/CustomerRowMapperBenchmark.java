@@ -0,0 +1,57 @@
+package com.stefco.webapp.benchmark;
+
+import com.stefco.webapp.dao.helpers.CustomerRowMapper;
+import com.stefco.webapp.model.Customer;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+// Maps one row of an in-memory CachedRowSet, which resolves column labels by searching its metadata
+// much like a driver ResultSet does.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CustomerRowMapperBenchmark {
+
+    private final CustomerRowMapper rowMapper = new CustomerRowMapper();
+    private CachedRowSet resultSet;
+
+    @Setup
+    public void setUp() throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(5);
+        String[] labels = {"id", "name", "email", "age", "version"};
+        int[] types = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.BIGINT};
+        for (int i = 0; i < labels.length; i++) {
+            metaData.setColumnName(i + 1, labels[i]);
+            metaData.setColumnLabel(i + 1, labels[i]);
+            metaData.setColumnType(i + 1, types[i]);
+        }
+
+        resultSet = RowSetProvider.newFactory().createCachedRowSet();
+        resultSet.setMetaData(metaData);
+        resultSet.moveToInsertRow();
+        resultSet.updateLong(1, 42L);
+        resultSet.updateString(2, "Alex Smith");
+        resultSet.updateString(3, "alex.smith@gmail.com");
+        resultSet.updateInt(4, 32);
+        resultSet.updateLong(5, 0L);
+        resultSet.insertRow();
+        resultSet.moveToCurrentRow();
+        resultSet.beforeFirst();
+        resultSet.next();
+    }
+
+    @Benchmark
+    public Customer mapRow() throws SQLException {
+        return rowMapper.mapRow(resultSet, 0);
+    }
+}
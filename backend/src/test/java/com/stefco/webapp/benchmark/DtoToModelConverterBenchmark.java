@@ -0,0 +1,30 @@
+package com.stefco.webapp.benchmark;
+
+import com.stefco.webapp.dto.CustomerDto;
+import com.stefco.webapp.model.Customer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.stefco.webapp.dtotomodel.DtoToModelConverter.convertDtoToCustomer;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DtoToModelConverterBenchmark {
+
+    private CustomerDto customerDto;
+
+    @Setup
+    public void setUp() {
+        customerDto = new CustomerDto("Alex Smith", "alex.smith@gmail.com", 32);
+    }
+
+    @Benchmark
+    public Customer convert() {
+        return convertDtoToCustomer(customerDto);
+    }
+}
@@ -0,0 +1,110 @@
+package com.stefco.webapp.controller;
+
+import com.stefco.webapp.dto.CustomerPage;
+import com.stefco.webapp.model.Customer;
+import com.stefco.webapp.service.CustomerETags;
+import com.stefco.webapp.service.ReactiveCustomerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCustomerControllerTest {
+
+    @Mock
+    private ReactiveCustomerService customerService;
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToController(new ReactiveCustomerController(customerService)).build();
+    }
+
+    @Test
+    void getCustomerSendsItsVersionAsETag() {
+        //Given
+        when(customerService.getCustomer(1L)).thenReturn(Mono.just(new Customer(1L, "Alex", "alex@gmail.com", 33, 7L)));
+
+        //When
+        //Then
+        webTestClient.get().uri("/api/v1/customers/1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"7\"");
+    }
+
+    @Test
+    void getCustomerWithCurrentETagIsNotModifiedWithoutLoadingTheCustomer() {
+        //Given
+        when(customerService.getCustomerVersion(1L)).thenReturn(Mono.just(7L));
+
+        //When
+        //Then
+        webTestClient.get().uri("/api/v1/customers/1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"7\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+        verify(customerService, never()).getCustomer(1L);
+    }
+
+    @Test
+    void getCustomerWithStaleETagReturnsTheCustomer() {
+        //Given
+        when(customerService.getCustomerVersion(1L)).thenReturn(Mono.just(7L));
+        when(customerService.getCustomer(1L)).thenReturn(Mono.just(new Customer(1L, "Alex", "alex@gmail.com", 33, 7L)));
+
+        //When
+        //Then
+        webTestClient.get().uri("/api/v1/customers/1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"6\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"7\"")
+                .expectBody().jsonPath("$.name").isEqualTo("Alex");
+    }
+
+    @Test
+    void getCustomersWithCurrentETagIsNotModifiedWithoutLoadingThePage() {
+        //Given
+        CustomerPage page = new CustomerPage(List.of(new Customer(1L, "Alex", "alex@gmail.com", 33, 0L)), null);
+        String etag = CustomerETags.of(page);
+        when(customerService.getCustomersETag(null, 10)).thenReturn(Mono.just(etag));
+
+        //When
+        //Then
+        webTestClient.get().uri("/api/v1/customers?limit=10")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + etag + "\"")
+                .exchange()
+                .expectStatus().isNotModified();
+        verify(customerService, never()).getCustomers(null, 10);
+    }
+
+    @Test
+    void getCustomersWithStaleETagReturnsThePageWithItsETag() {
+        //Given
+        CustomerPage page = new CustomerPage(List.of(new Customer(1L, "Alex", "alex@gmail.com", 33, 1L)), null);
+        when(customerService.getCustomersETag(null, 10)).thenReturn(Mono.just(CustomerETags.of(page)));
+        when(customerService.getCustomers(null, 10)).thenReturn(Mono.just(page));
+
+        //When
+        //Then
+        webTestClient.get().uri("/api/v1/customers?limit=10")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"stale\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + CustomerETags.of(page) + "\"")
+                .expectBody().jsonPath("$.customers[0].name").isEqualTo("Alex");
+    }
+}
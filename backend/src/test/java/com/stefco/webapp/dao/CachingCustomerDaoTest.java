@@ -0,0 +1,163 @@
+package com.stefco.webapp.dao;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stefco.webapp.datasource.ReadYourWrites;
+import com.stefco.webapp.model.Customer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class CachingCustomerDaoTest {
+
+    private CachingCustomerDao underTest;
+    private AsyncCache<Long, Customer> cache;
+    @Mock
+    private CustomerDao customerDao;
+    private AutoCloseable autoCloseable;
+
+    @BeforeEach
+    void setUp() {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+        cache = Caffeine.newBuilder().maximumSize(100).recordStats().buildAsync();
+        underTest = new CachingCustomerDao(customerDao, cache);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        autoCloseable.close();
+    }
+
+    @Test
+    void selectCustomerByIdHitsDelegateOnlyOnce() {
+        //Given
+        long id = 1;
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(new Customer(id, "Alex", "alex@gmail.com", 32)));
+        //When
+        underTest.selectCustomerById(id);
+        Optional<Customer> actual = underTest.selectCustomerById(id);
+        //Then
+        assertThat(actual).hasValueSatisfying(c -> assertThat(c.getEmail()).isEqualTo("alex@gmail.com"));
+        verify(customerDao, times(1)).selectCustomerById(id);
+        assertThat(cache.synchronous().stats().hitCount()).isEqualTo(1);
+        assertThat(cache.synchronous().stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void selectCustomerVersionIsAnsweredFromCachedCustomer() {
+        //Given
+        long id = 1;
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(new Customer(id, "Alex", "alex@gmail.com", 32, 3L)));
+        underTest.selectCustomerById(id);
+        //When
+        Optional<Long> actual = underTest.selectCustomerVersion(id);
+        //Then
+        assertThat(actual).hasValue(3L);
+        verify(customerDao, never()).selectCustomerVersion(id);
+    }
+
+    @Test
+    void selectCustomerVersionReadsOnlyTheVersionWhenNotCached() {
+        //Given
+        long id = 1;
+        when(customerDao.selectCustomerVersion(id)).thenReturn(Optional.of(3L));
+        //When
+        Optional<Long> actual = underTest.selectCustomerVersion(id);
+        //Then
+        assertThat(actual).hasValue(3L);
+        verify(customerDao, never()).selectCustomerById(id);
+    }
+
+    @Test
+    void selectCustomersByIdsLoadsOnlyMissesInOneCall() {
+        //Given
+        Customer cached = new Customer(1L, "Alex", "alex@gmail.com", 32);
+        Customer loaded = new Customer(2L, "Jamila", "jamila@gmail.com", 21);
+        when(customerDao.selectCustomerById(1L)).thenReturn(Optional.of(cached));
+        when(customerDao.selectCustomersByIds(Set.of(2L, 3L))).thenReturn(List.of(loaded));
+        underTest.selectCustomerById(1L);
+        //When
+        List<Customer> actual = underTest.selectCustomersByIds(List.of(2L, 1L, 3L));
+        List<Customer> again = underTest.selectCustomersByIds(List.of(1L, 2L));
+        //Then
+        assertThat(actual).containsExactly(loaded, cached);
+        assertThat(again).containsExactly(cached, loaded);
+        verify(customerDao, times(1)).selectCustomersByIds(any());
+    }
+
+    @Test
+    void missingCustomerIsNotCached() {
+        //Given
+        long id = 1;
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.empty());
+        //When
+        underTest.selectCustomerById(id);
+        Optional<Customer> actual = underTest.selectCustomerById(id);
+        //Then
+        assertThat(actual).isEmpty();
+        verify(customerDao, times(2)).selectCustomerById(id);
+    }
+
+    @Test
+    void mutatingReturnedCustomerDoesNotChangeCache() {
+        //Given
+        long id = 1;
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(new Customer(id, "Alex", "alex@gmail.com", 32)));
+        //When
+        underTest.selectCustomerById(id).orElseThrow().setName("Changed");
+        //Then
+        assertThat(underTest.selectCustomerById(id)).hasValueSatisfying(c -> assertThat(c.getName()).isEqualTo("Alex"));
+    }
+
+    @Test
+    void writesInvalidateCachedCustomer() {
+        //Given
+        long id = 1;
+        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(new Customer(id, "Alex", "alex@gmail.com", 32)));
+        when(customerDao.updateCustomerFields(id, "New", null, null, null)).thenReturn(CustomerUpdateResult.notFound());
+        //When
+        underTest.selectCustomerById(id);
+        underTest.updateCustomerFields(id, "New", null, null, null);
+        underTest.selectCustomerById(id);
+        underTest.updateCustomer(new Customer(id, "Other", "alex@gmail.com", 32));
+        underTest.selectCustomerById(id);
+        underTest.deleteCustomerWithId(id);
+        underTest.selectCustomerById(id);
+        underTest.deleteCustomersWithIds(List.of(id));
+        underTest.selectCustomerById(id);
+        //Then
+        verify(customerDao, times(5)).selectCustomerById(id);
+    }
+
+    @Test
+    void updateThenGetThroughCacheReadsPrimaryWhileReplicaLags() {
+        //Given
+        long id = 1;
+        Customer stale = new Customer(id, "Alex", "alex@gmail.com", 32, 0L);
+        Customer updated = new Customer(id, "New", "alex@gmail.com", 32, 1L);
+        // the replica has not replayed the update yet, only the primary has it
+        when(customerDao.selectCustomerById(id)).thenAnswer(invocation ->
+                Optional.of(ReadYourWrites.isPinnedToPrimary() ? updated : stale));
+        when(customerDao.selectCustomersByIds(Set.of(id))).thenAnswer(invocation ->
+                List.of(ReadYourWrites.isPinnedToPrimary() ? updated : stale));
+        when(customerDao.updateCustomerFields(id, "New", null, null, null)).thenReturn(CustomerUpdateResult.updated(updated));
+        //When
+        underTest.updateCustomerFields(id, "New", null, null, null);
+        Optional<Customer> actual = underTest.selectCustomerById(id);
+        cache.synchronous().invalidateAll();
+        List<Customer> actualByIds = underTest.selectCustomersByIds(Set.of(id));
+        //Then
+        assertThat(actual).hasValueSatisfying(c -> assertThat(c.getName()).isEqualTo("New"));
+        assertThat(actualByIds).singleElement().satisfies(c -> assertThat(c.getName()).isEqualTo("New"));
+        assertThat(ReadYourWrites.isPinnedToPrimary()).isFalse();
+    }
+}
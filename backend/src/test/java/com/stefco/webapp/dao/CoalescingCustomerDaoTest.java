@@ -0,0 +1,194 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.datasource.ReadYourWrites;
+import com.stefco.webapp.model.Customer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class CoalescingCustomerDaoTest {
+
+    private static final int READERS = 8;
+
+    private CoalescingCustomerDao underTest;
+    private SimpleMeterRegistry meterRegistry;
+    @Mock
+    private CustomerDao customerDao;
+    private AutoCloseable autoCloseable;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new CoalescingCustomerDao(customerDao, meterRegistry);
+        executor = Executors.newFixedThreadPool(READERS);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.shutdownNow();
+        autoCloseable.close();
+    }
+
+    @Test
+    void concurrentReadsOfTheSameIdShareOneQuery() throws Exception {
+        //Given
+        long id = 1;
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerDao.selectCustomerById(id)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(new Customer(id, "Alex", "alex@gmail.com", 32));
+        });
+        //When
+        List<Future<Optional<Customer>>> reads = new ArrayList<>();
+        for (int i = 0; i < READERS; i++) {
+            reads.add(executor.submit(() -> underTest.selectCustomerById(id)));
+        }
+        // every reader but the leader is parked on the leader's future
+        while (coalesced("selectCustomerById") < READERS - 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        //Then
+        List<Customer> customers = new ArrayList<>();
+        for (Future<Optional<Customer>> read : reads) {
+            customers.add(read.get(5, TimeUnit.SECONDS).orElseThrow());
+        }
+        assertThat(customers).allSatisfy(customer -> assertThat(customer.getEmail()).isEqualTo("alex@gmail.com"));
+        // followers get their own copy, so no caller can mutate another one's customer
+        assertThat(customers).extracting(System::identityHashCode).doesNotHaveDuplicates();
+        verify(customerDao, times(1)).selectCustomerById(id);
+    }
+
+    @Test
+    void finishedReadIsNotReused() {
+        //Given
+        when(customerDao.existsPersonWithEmail("alex@gmail.com")).thenReturn(false, true);
+        //When
+        boolean first = underTest.existsPersonWithEmail("alex@gmail.com");
+        boolean second = underTest.existsPersonWithEmail("alex@gmail.com");
+        //Then
+        assertThat(first).isFalse();
+        assertThat(second).isTrue();
+        verify(customerDao, times(2)).existsPersonWithEmail("alex@gmail.com");
+        assertThat(coalesced("existsPersonWithEmail")).isZero();
+    }
+
+    @Test
+    void failedReadFailsEveryWaiterAndIsNotReused() throws Exception {
+        //Given
+        long id = 1;
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerDao.existsCustomerWithId(id))
+                .thenAnswer(invocation -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    throw new QueryTimeoutException("timeout");
+                })
+                .thenReturn(true);
+        //When
+        Future<Boolean> leader = executor.submit(() -> underTest.existsCustomerWithId(id));
+        verify(customerDao, timeout(5000)).existsCustomerWithId(id);
+        Future<Boolean> follower = executor.submit(() -> underTest.existsCustomerWithId(id));
+        while (coalesced("existsCustomerWithId") < 1) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        //Then
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(QueryTimeoutException.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(QueryTimeoutException.class);
+        assertThat(underTest.existsCustomerWithId(id)).isTrue();
+    }
+
+    @Test
+    void readsInsideATransactionAreNotCoalesced() {
+        //Given
+        when(customerDao.selectCustomerVersion(1L)).thenReturn(Optional.of(3L));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            //When
+            Optional<Long> actual = underTest.selectCustomerVersion(1L);
+            //Then
+            assertThat(actual).hasValue(3L);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        verify(customerDao).selectCustomerVersion(1L);
+    }
+
+    @Test
+    void readAfterAWriteDoesNotJoinAReadStartedBeforeIt() throws Exception {
+        //Given
+        long id = 1;
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerDao.selectCustomerById(id))
+                .thenAnswer(invocation -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return Optional.of(new Customer(id, "Alex", "alex@gmail.com", 32));
+                })
+                .thenReturn(Optional.of(new Customer(id, "New", "alex@gmail.com", 32)));
+        when(customerDao.updateCustomerFields(id, "New", null, null, null))
+                .thenReturn(CustomerUpdateResult.updated(new Customer(id, "New", "alex@gmail.com", 32)));
+        Future<Optional<Customer>> beforeWrite = executor.submit(() -> underTest.selectCustomerById(id));
+        verify(customerDao, timeout(5000)).selectCustomerById(id);
+        //When
+        underTest.updateCustomerFields(id, "New", null, null, null);
+        Optional<Customer> afterWrite = executor.submit(() -> underTest.selectCustomerById(id)).get(5, TimeUnit.SECONDS);
+        release.countDown();
+        //Then
+        assertThat(afterWrite).hasValueSatisfying(c -> assertThat(c.getName()).isEqualTo("New"));
+        assertThat(beforeWrite.get(5, TimeUnit.SECONDS)).hasValueSatisfying(c -> assertThat(c.getName()).isEqualTo("Alex"));
+        verify(customerDao, times(2)).selectCustomerById(id);
+        assertThat(coalesced("selectCustomerById")).isZero();
+    }
+
+    @Test
+    void readPinnedToPrimaryDoesNotJoinAReplicaRead() throws Exception {
+        //Given
+        String email = "alex@gmail.com";
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerDao.existsPersonWithEmail(email))
+                .thenAnswer(invocation -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return false;
+                })
+                .thenReturn(true);
+        Future<Boolean> replicaRead = executor.submit(() -> underTest.existsPersonWithEmail(email));
+        verify(customerDao, timeout(5000)).existsPersonWithEmail(email);
+        //When
+        boolean actual;
+        ReadYourWrites.pinToPrimary();
+        try {
+            actual = underTest.existsPersonWithEmail(email);
+        } finally {
+            ReadYourWrites.clear();
+        }
+        release.countDown();
+        //Then
+        assertThat(actual).isTrue();
+        assertThat(replicaRead.get(5, TimeUnit.SECONDS)).isFalse();
+        verify(customerDao, times(2)).existsPersonWithEmail(email);
+    }
+
+    private double coalesced(String method) {
+        return meterRegistry.counter(CoalescingCustomerDao.METRIC_NAME, "method", method).count();
+    }
+}
@@ -0,0 +1,52 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.AbstractTestContainers;
+import com.stefco.webapp.dao.helpers.CustomerIdAllocator;
+import com.stefco.webapp.dao.helpers.CustomerRowMapper;
+import com.stefco.webapp.model.Customer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerBulkImporterTest extends AbstractTestContainers {
+
+    private CustomerBulkImporter underTest;
+    private CustomerDaoImplJdbc customerDao;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerBulkImporter(getJdbcTemplate());
+        customerDao = new CustomerDaoImplJdbc(
+                getJdbcTemplate(),
+                new CustomerRowMapper(),
+                new CustomerIdAllocator(getJdbcTemplate())
+        );
+    }
+
+    @Test
+    void importCustomersSkipsExistingAndRepeatedEmails() {
+        //Given
+        String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        customerDao.insertCustomer(new Customer("Taken", takenEmail, 30));
+        String newEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        List<Customer> customers = List.of(
+                new Customer("First, \"Quoted\"", newEmail, 20),
+                new Customer("Duplicate", takenEmail, 21),
+                new Customer("Second", newEmail, 22)
+        );
+        //When
+        CustomerBulkImporter.CopyResult actual = underTest.importCustomers(customers.iterator());
+        //Then
+        assertThat(actual.copied()).isEqualTo(3);
+        assertThat(actual.inserted()).isEqualTo(1);
+        assertThat(actual.duplicates()).isEqualTo(2);
+        assertThat(customerDao.selectAllCustomers())
+                .filteredOn(c -> c.getEmail().equals(newEmail))
+                .singleElement()
+                .satisfies(c -> assertThat(c.getName()).isEqualTo("First, \"Quoted\""));
+    }
+}
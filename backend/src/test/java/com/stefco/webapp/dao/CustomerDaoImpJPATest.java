@@ -1,11 +1,22 @@
 package com.stefco.webapp.dao;
 
+import com.stefco.webapp.dao.helpers.CustomerIdAllocator;
 import com.stefco.webapp.model.Customer;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 class CustomerDaoImpJPATest {
@@ -13,12 +24,16 @@ class CustomerDaoImpJPATest {
     private CustomerDaoImpJPA underTest;
     @Mock
     private CustomerRepository customerRepository;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private CustomerIdAllocator customerIdAllocator;
     private AutoCloseable autoCloseable;
 
     @BeforeEach
     void setUp() {
         autoCloseable = MockitoAnnotations.openMocks(this);
-        underTest = new CustomerDaoImpJPA(customerRepository);
+        underTest = new CustomerDaoImpJPA(customerRepository, entityManager, customerIdAllocator);
     }
 
     @AfterEach
@@ -34,6 +49,30 @@ class CustomerDaoImpJPATest {
         verify(customerRepository).findAll();
     }
 
+    @Test
+    void selectCustomers() {
+        //Given
+        long afterId = 10;
+        int limit = 20;
+        //When
+        underTest.selectCustomers(afterId, limit);
+        //Then
+        verify(customerRepository).findByIdGreaterThan(afterId, PageRequest.of(0, limit, Sort.by("id")));
+    }
+
+    @Test
+    void forEachCustomerDetachesStreamedCustomers() {
+        //Given
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", 32);
+        when(customerRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(customer));
+        List<Customer> actual = new ArrayList<>();
+        //When
+        underTest.forEachCustomer(actual::add);
+        //Then
+        assertThat(actual).containsExactly(customer);
+        verify(entityManager).detach(customer);
+    }
+
     @Test
     void selectCustomerById() {
         //Given
@@ -54,6 +93,34 @@ class CustomerDaoImpJPATest {
         verify(customerRepository).save(customer);
     }
 
+    @Test
+    void insertCustomerIfEmailAbsent() {
+        //Given
+        Customer customer = new Customer("Alex", "alex@gmail.com", 33);
+        when(customerIdAllocator.nextId()).thenReturn(7L);
+        when(customerRepository.insertIfEmailAbsent(7L, "Alex", "alex@gmail.com", 33)).thenReturn(Optional.of(7L));
+        //When
+        Optional<Long> actual = underTest.insertCustomerIfEmailAbsent(customer);
+        //Then
+        assertThat(actual).contains(7L);
+        assertThat(customer.getId()).isEqualTo(7L);
+    }
+
+    @Test
+    void insertCustomersSkipsTakenAndRepeatedEmails() {
+        //Given
+        Customer alex = new Customer("Alex", "alex@gmail.com", 33);
+        Customer taken = new Customer("Ali", "ali@gmail.com", 45);
+        Customer repeated = new Customer("Alex Again", "alex@gmail.com", 34);
+        when(customerRepository.findEmailsIn(List.of("alex@gmail.com", "ali@gmail.com", "alex@gmail.com")))
+                .thenReturn(List.of("ali@gmail.com"));
+        //When
+        List<Boolean> actual = underTest.insertCustomers(List.of(alex, taken, repeated));
+        //Then
+        assertThat(actual).containsExactly(true, false, false);
+        verify(customerRepository).saveAll(List.of(alex));
+    }
+
     @Test
     void existsPersonWithEmail() {
         //Given
@@ -78,10 +145,26 @@ class CustomerDaoImpJPATest {
     void deleteCustomerWithId() {
         //Given
         long id = 1;
+        Customer customer = new Customer(id, "Alex", "alex@gmail.com", 32);
+        when(customerRepository.findByIdForUpdate(id)).thenReturn(Optional.of(customer));
+        //When
+        Optional<Customer> actual = underTest.deleteCustomerWithId(id);
+        //Then
+        assertThat(actual).contains(customer);
+        verify(customerRepository).delete(customer);
+    }
+
+    @Test
+    void deleteCustomersWithIds() {
+        //Given
+        List<Long> ids = List.of(1L, 2L);
+        List<Customer> customers = List.of(new Customer(1L, "Alex", "alex@gmail.com", 32));
+        when(customerRepository.findAllById(ids)).thenReturn(customers);
         //When
-        underTest.deleteCustomerWithId(id);
+        List<Customer> actual = underTest.deleteCustomersWithIds(ids);
         //Then
-        verify(customerRepository).deleteById(id);
+        assertThat(actual).isEqualTo(customers);
+        verify(customerRepository).deleteAllInBatch(customers);
     }
 
     @Test
@@ -93,4 +176,73 @@ class CustomerDaoImpJPATest {
         //Then
         verify(customerRepository).save(customer);
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateCustomerFieldsSavesOnlyWhenSomethingChanged() {
+        //Given
+        long id = 1;
+        Customer customer = new Customer(id, "Alex", "alex@gmail.com", 32);
+        when(customerRepository.findById(id)).thenReturn(Optional.of(customer));
+        when(customerRepository.saveAndFlush(customer)).thenReturn(customer);
+        //When
+        CustomerUpdateResult unchanged = underTest.updateCustomerFields(id, "Alex", null, 32, null);
+        CustomerUpdateResult updated = underTest.updateCustomerFields(id, null, null, 33, null);
+        //Then
+        assertThat(unchanged.status()).isEqualTo(CustomerUpdateResult.Status.UNCHANGED);
+        assertThat(updated.status()).isEqualTo(CustomerUpdateResult.Status.UPDATED);
+        assertThat(updated.customer().getAge()).isEqualTo(33);
+        verify(customerRepository, times(1)).saveAndFlush(customer);
+    }
+
+    @Test
+    void updateCustomerFieldsReportsMissingCustomer() {
+        //Given
+        long id = 1;
+        when(customerRepository.findById(id)).thenReturn(Optional.empty());
+        //When
+        CustomerUpdateResult actual = underTest.updateCustomerFields(id, "Alex", null, null, null);
+        //Then
+        assertThat(actual.status()).isEqualTo(CustomerUpdateResult.Status.NOT_FOUND);
+        verify(customerRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void updateCustomerFieldsReportsVersionConflict() {
+        //Given
+        long id = 1;
+        Customer customer = new Customer(id, "Alex", "alex@gmail.com", 32, 2L);
+        when(customerRepository.findById(id)).thenReturn(Optional.of(customer));
+        //When
+        CustomerUpdateResult actual = underTest.updateCustomerFields(id, null, null, 33, 1L);
+        //Then
+        assertThat(actual.status()).isEqualTo(CustomerUpdateResult.Status.VERSION_CONFLICT);
+        verify(customerRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void selectCustomersByIds() {
+        //Given
+        List<Long> ids = List.of(1L, 2L);
+        //When
+        underTest.selectCustomersByIds(ids);
+        //Then
+        verify(customerRepository).findAllById(ids);
+    }
+
+    @Test
+    void searchCustomersStartsFromTheTopWithoutACursor() {
+        //Given
+        CustomerRepository.CustomerMatchRow row = mock(CustomerRepository.CustomerMatchRow.class);
+        when(row.getId()).thenReturn(1L);
+        when(row.getName()).thenReturn("Alex");
+        when(row.getEmail()).thenReturn("alex@gmail.com");
+        when(row.getAge()).thenReturn(32);
+        when(row.getVersion()).thenReturn(0L);
+        when(row.getScore()).thenReturn(0.8f);
+        when(customerRepository.search("alx", Float.MAX_VALUE, 0L, 10)).thenReturn(List.of(row));
+        //When
+        List<CustomerMatch> actual = underTest.searchCustomers("alx", null, null, 10);
+        //Then
+        assertThat(actual).containsExactly(new CustomerMatch(new Customer(1L, "Alex", "alex@gmail.com", 32), 0.8f));
+    }
+}
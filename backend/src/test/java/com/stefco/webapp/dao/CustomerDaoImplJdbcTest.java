@@ -1,17 +1,22 @@
 package com.stefco.webapp.dao;
 
 import com.stefco.webapp.AbstractTestContainers;
+import com.stefco.webapp.dao.helpers.CustomerIdAllocator;
 import com.stefco.webapp.dao.helpers.CustomerRowMapper;
 import com.stefco.webapp.model.Customer;
 import org.checkerframework.checker.units.qual.C;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class CustomerDaoImplJdbcTest extends AbstractTestContainers {
 
@@ -21,7 +26,8 @@ class CustomerDaoImplJdbcTest extends AbstractTestContainers {
     void setUp() {
         underTest = new CustomerDaoImplJdbc(
                 getJdbcTemplate(),
-                customerRowMapper
+                customerRowMapper,
+                new CustomerIdAllocator(getJdbcTemplate())
         );
     }
 
@@ -41,6 +47,46 @@ class CustomerDaoImplJdbcTest extends AbstractTestContainers {
         assertThat(actual).isNotEmpty();
     }
 
+    @Test
+    void selectCustomersPagesByIdAfterCursor() {
+        //Given
+        for (int i = 0; i < 3; i++) {
+            underTest.insertCustomer(new Customer(
+                    FAKER.name().fullName(),
+                    FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                    FAKER.number().numberBetween(16,99)
+            ));
+        }
+        List<Customer> firstPage = underTest.selectCustomers(null, 2);
+        //When
+        List<Customer> secondPage = underTest.selectCustomers(firstPage.get(1).getId(), 2);
+
+        //Then
+        assertThat(firstPage).hasSize(2);
+        assertThat(firstPage.get(0).getId()).isLessThan(firstPage.get(1).getId());
+        assertThat(secondPage).isNotEmpty().allSatisfy(c ->
+                assertThat(c.getId()).isGreaterThan(firstPage.get(1).getId()));
+    }
+
+    @Test
+    void forEachCustomerVisitsEveryCustomer() {
+        //Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                FAKER.number().numberBetween(16,99)
+        );
+        underTest.insertCustomer(customer);
+        List<Customer> actual = new ArrayList<>();
+        //When
+        underTest.forEachCustomer(actual::add);
+
+        //Then
+        assertThat(actual).hasSameSizeAs(underTest.selectAllCustomers());
+        assertThat(actual).extracting(Customer::getEmail).contains(email);
+    }
+
     @Test
     void selectCustomerById() {
         //Given
@@ -68,6 +114,19 @@ class CustomerDaoImplJdbcTest extends AbstractTestContainers {
         });
     }
 
+    @Test
+    void selectCustomersByIdsReturnsOnlyExistingCustomers() {
+        //Given
+        Customer first = new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 20);
+        Customer second = new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 21);
+        underTest.insertCustomer(first);
+        underTest.insertCustomer(second);
+        //When
+        List<Customer> actual = underTest.selectCustomersByIds(List.of(second.getId(), -1L, first.getId()));
+        //Then
+        assertThat(actual).containsExactlyInAnyOrder(first, second);
+    }
+
     @Test
     void willReturnEmptyWhenSelectCustomerById() {
         //Given
@@ -94,6 +153,44 @@ class CustomerDaoImplJdbcTest extends AbstractTestContainers {
         List<Customer> actual = underTest.selectAllCustomers();
         //Then
         assertThat(actual).isNotEmpty();
+        assertThat(customer.getId()).isNotNull();
+        assertThat(underTest.selectCustomerById(customer.getId())).hasValueSatisfying(c ->
+                assertThat(c.getEmail()).isEqualTo(email));
+    }
+
+    @Test
+    void insertCustomerIfEmailAbsent() {
+        //Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(FAKER.name().fullName(), email, 30);
+        Customer sameEmail = new Customer(FAKER.name().fullName(), email, 31);
+        //When
+        Optional<Long> first = underTest.insertCustomerIfEmailAbsent(customer);
+        Optional<Long> second = underTest.insertCustomerIfEmailAbsent(sameEmail);
+        //Then
+        assertThat(first).isPresent().contains(customer.getId());
+        assertThat(second).isEmpty();
+        assertThat(sameEmail.getId()).isNull();
+        assertThat(underTest.selectCustomerById(first.get())).hasValueSatisfying(c ->
+                assertThat(c.getAge()).isEqualTo(30));
+    }
+
+    @Test
+    void insertCustomersReportsTakenEmails() {
+        //Given
+        String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), takenEmail, 30));
+        String newEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        List<Customer> customers = List.of(
+                new Customer(FAKER.name().fullName(), newEmail, 20),
+                new Customer(FAKER.name().fullName(), takenEmail, 21),
+                new Customer(FAKER.name().fullName(), newEmail, 22)
+        );
+        //When
+        List<Boolean> actual = underTest.insertCustomers(customers);
+        //Then
+        assertThat(actual).containsExactly(true, false, false);
+        assertThat(underTest.existsPersonWithEmail(newEmail)).isTrue();
     }
 
     @Test
@@ -172,10 +269,27 @@ class CustomerDaoImplJdbcTest extends AbstractTestContainers {
                 .findFirst()
                 .orElseThrow();
         //When
-        underTest.deleteCustomerWithId(id);
+        Optional<Customer> deleted = underTest.deleteCustomerWithId(id);
         //Then
         Optional<Customer> actual = underTest.selectCustomerById(id);
         assertThat(actual).isNotPresent();
+        assertThat(deleted).hasValueSatisfying(c -> assertThat(c.getEmail()).isEqualTo(email));
+        assertThat(underTest.deleteCustomerWithId(id)).isEmpty();
+    }
+
+    @Test
+    void deleteCustomersWithIdsReturnsRemovedCustomers() {
+        //Given
+        Customer first = new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 20);
+        Customer second = new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 21);
+        underTest.insertCustomer(first);
+        underTest.insertCustomer(second);
+        //When
+        List<Customer> actual = underTest.deleteCustomersWithIds(List.of(first.getId(), second.getId(), -1L));
+        //Then
+        assertThat(actual).containsExactlyInAnyOrder(first, second);
+        assertThat(underTest.selectCustomerById(first.getId())).isEmpty();
+        assertThat(underTest.selectCustomerById(second.getId())).isEmpty();
     }
 
 
@@ -332,4 +446,196 @@ class CustomerDaoImplJdbcTest extends AbstractTestContainers {
             assertThat(c.getAge()).isEqualTo(updatedCustomer.getAge());
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateCustomerFieldsChangesOnlyGivenFields() {
+        //Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(FAKER.name().fullName(), email, 30);
+        underTest.insertCustomer(customer);
+        //When
+        CustomerUpdateResult actual = underTest.updateCustomerFields(customer.getId(), null, null, 31, null);
+        //Then
+        assertThat(actual.status()).isEqualTo(CustomerUpdateResult.Status.UPDATED);
+        assertThat(actual.customer()).isEqualTo(new Customer(customer.getId(), customer.getName(), email, 31));
+        assertThat(underTest.selectCustomerById(customer.getId())).hasValue(actual.customer());
+    }
+
+    @Test
+    void updateCustomerFieldsBumpsVersion() {
+        //Given
+        Customer customer = new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 30);
+        underTest.insertCustomer(customer);
+        //When
+        Optional<Long> before = underTest.selectCustomerVersion(customer.getId());
+        CustomerUpdateResult actual = underTest.updateCustomerFields(customer.getId(), null, null, 31, null);
+        //Then
+        assertThat(before).hasValue(0L);
+        assertThat(actual.customer().getVersion()).isEqualTo(1L);
+        assertThat(underTest.selectCustomerVersion(customer.getId())).hasValue(1L);
+    }
+
+    @Test
+    void updateCustomerFieldsChecksExpectedVersion() {
+        //Given
+        Customer customer = new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 30);
+        underTest.insertCustomer(customer);
+        //When
+        CustomerUpdateResult first = underTest.updateCustomerFields(customer.getId(), null, null, 31, 0L);
+        CustomerUpdateResult stale = underTest.updateCustomerFields(customer.getId(), null, null, 32, 0L);
+        CustomerUpdateResult staleNoOp = underTest.updateCustomerFields(customer.getId(), null, null, 31, 0L);
+        CustomerUpdateResult current = underTest.updateCustomerFields(customer.getId(), null, null, 31, 1L);
+        //Then
+        assertThat(first.status()).isEqualTo(CustomerUpdateResult.Status.UPDATED);
+        assertThat(stale.status()).isEqualTo(CustomerUpdateResult.Status.VERSION_CONFLICT);
+        assertThat(staleNoOp.status()).isEqualTo(CustomerUpdateResult.Status.VERSION_CONFLICT);
+        assertThat(current.status()).isEqualTo(CustomerUpdateResult.Status.UNCHANGED);
+        assertThat(underTest.selectCustomerById(customer.getId())).hasValueSatisfying(c -> {
+            assertThat(c.getAge()).isEqualTo(31);
+            assertThat(c.getVersion()).isEqualTo(1L);
+        });
+    }
+
+    @Test
+    void selectCustomerVersionIsEmptyForMissingCustomer() {
+        //When
+        Optional<Long> actual = underTest.selectCustomerVersion(-1L);
+        //Then
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    void selectCustomerVersionsMatchesSelectCustomers() {
+        //Given
+        for (int i = 0; i < 3; i++) {
+            underTest.insertCustomer(new Customer(
+                    FAKER.name().fullName(),
+                    FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                    FAKER.number().numberBetween(16,99)
+            ));
+        }
+        //When
+        List<CustomerVersion> actual = underTest.selectCustomerVersions(null, 3);
+        //Then
+        assertThat(actual).containsExactlyElementsOf(underTest.selectCustomers(null, 3).stream()
+                .map(c -> new CustomerVersion(c.getId(), c.getVersion()))
+                .toList());
+    }
+
+    @Test
+    void updateCustomerFieldsReportsNoChange() {
+        //Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(FAKER.name().fullName(), email, 30);
+        underTest.insertCustomer(customer);
+        //When
+        CustomerUpdateResult actual = underTest.updateCustomerFields(customer.getId(), customer.getName(), email, null, null);
+        //Then
+        assertThat(actual.status()).isEqualTo(CustomerUpdateResult.Status.UNCHANGED);
+        assertThat(actual.customer()).isNull();
+    }
+
+    @Test
+    void updateCustomerFieldsReportsMissingCustomer() {
+        //When
+        CustomerUpdateResult actual = underTest.updateCustomerFields(-1L, "Alex", null, null, null);
+        //Then
+        assertThat(actual.status()).isEqualTo(CustomerUpdateResult.Status.NOT_FOUND);
+    }
+
+    @Test
+    void updateCustomerFieldsThrowsWhenEmailTaken() {
+        //Given
+        String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), takenEmail, 30));
+        Customer customer = new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 30);
+        underTest.insertCustomer(customer);
+        //When
+        //Then
+        assertThatThrownBy(() -> underTest.updateCustomerFields(customer.getId(), null, takenEmail, null, null))
+                .isInstanceOf(DuplicateKeyException.class)
+                .hasMessageContaining(Customer.EMAIL_UNIQUE_CONSTRAINT);
+    }
+
+    @Test
+    void searchCustomersRanksCloserMatchesFirst() {
+        //Given
+        String term = FAKER.letterify("??????????");
+        Customer exact = new Customer(term + " Smith", FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 20);
+        Customer typo = new Customer(term.substring(0, 9) + "z Jones", FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 21);
+        Customer byEmail = new Customer(FAKER.name().fullName(), term.substring(0, 6) + "@" + UUID.randomUUID() + ".com", 22);
+        underTest.insertCustomer(typo);
+        underTest.insertCustomer(exact);
+        underTest.insertCustomer(byEmail);
+        //When
+        List<CustomerMatch> actual = underTest.searchCustomers(term, null, null, 10);
+        //Then
+        assertThat(actual).extracting(CustomerMatch::customer).startsWith(exact).contains(typo).doesNotContain(byEmail);
+        assertThat(actual).extracting(CustomerMatch::score).isSortedAccordingTo(Comparator.reverseOrder());
+        assertThat(underTest.searchCustomers(term.substring(0, 6), null, null, 10))
+                .extracting(CustomerMatch::customer).contains(exact, byEmail);
+    }
+
+    @Test
+    void searchCustomersPagesAfterScoreAndId() {
+        //Given
+        String term = FAKER.letterify("??????????");
+        for (int i = 0; i < 3; i++) {
+            underTest.insertCustomer(new Customer(term, FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 20));
+        }
+        List<CustomerMatch> firstPage = underTest.searchCustomers(term, null, null, 2);
+        CustomerMatch last = firstPage.get(1);
+        //When
+        List<CustomerMatch> actual = underTest.searchCustomers(term, last.score(), last.customer().getId(), 2);
+        //Then
+        assertThat(firstPage).hasSize(2);
+        assertThat(actual).hasSize(1);
+        assertThat(actual.get(0).customer().getId()).isGreaterThan(last.customer().getId());
+    }
+
+    @Test
+    void selectCustomersByQueryPagesByAgeDescending() {
+        //Given
+        String prefix = FAKER.letterify("??????????");
+        List<Customer> customers = new ArrayList<>();
+        for (int age : new int[]{30, 40, 40, 50}) {
+            Customer customer = new Customer(prefix + " " + age, FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), age);
+            underTest.insertCustomer(customer);
+            customers.add(customer);
+        }
+        CustomerQuery query = new CustomerQuery(35, null, null, prefix, CustomerSort.AGE, true);
+        List<Customer> firstPage = underTest.selectCustomers(query, null, 2);
+        //When
+        List<Customer> actual = underTest.selectCustomers(query, firstPage.get(1), 2);
+        //Then
+        assertThat(firstPage).containsExactly(customers.get(3), customers.get(2));
+        assertThat(actual).containsExactly(customers.get(1));
+    }
+
+    @Test
+    void selectCustomersByQueryMatchesNamePrefixLiterally() {
+        //Given
+        String prefix = FAKER.letterify("??????????");
+        Customer percent = new Customer(prefix + "%x", FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 20);
+        Customer other = new Customer(prefix + "ax", FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 20);
+        underTest.insertCustomer(percent);
+        underTest.insertCustomer(other);
+        //When
+        List<Customer> actual = underTest.selectCustomers(
+                new CustomerQuery(null, null, null, prefix + "%", CustomerSort.NAME, false), null, 10);
+        //Then
+        assertThat(actual).containsExactly(percent);
+    }
+
+    @Test
+    void selectCustomersByQueryFiltersByEmail() {
+        //Given
+        Customer customer = new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 20);
+        underTest.insertCustomer(customer);
+        //When
+        List<Customer> actual = underTest.selectCustomers(
+                new CustomerQuery(20, 20, customer.getEmail(), null, CustomerSort.ID, false), null, 10);
+        //Then
+        assertThat(actual).containsExactly(customer);
+    }
+}
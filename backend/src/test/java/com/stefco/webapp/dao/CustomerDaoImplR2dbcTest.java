@@ -0,0 +1,168 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.AbstractTestContainers;
+import com.stefco.webapp.dao.helpers.ReactiveCustomerIdAllocator;
+import com.stefco.webapp.model.Customer;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerDaoImplR2dbcTest extends AbstractTestContainers {
+
+    private CustomerDaoImplR2dbc underTest;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(postgreSQLContainer.getJdbcUrl().replace("jdbc:", "r2dbc:"))
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, postgreSQLContainer.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, postgreSQLContainer.getPassword())
+                .build();
+        DatabaseClient databaseClient = DatabaseClient.create(ConnectionFactories.get(options));
+        underTest = new CustomerDaoImplR2dbc(databaseClient, new ReactiveCustomerIdAllocator(databaseClient));
+    }
+
+    @Test
+    void insertAndSelectCustomerById() {
+        //Given
+        Customer customer = newCustomer();
+        //When
+        Long id = underTest.insertCustomerIfEmailAbsent(customer).block();
+        //Then
+        Customer actual = underTest.selectCustomerById(id).block();
+        assertThat(actual).isEqualTo(new Customer(id, customer.getName(), customer.getEmail(), customer.getAge()));
+    }
+
+    @Test
+    void insertsTakeConsecutiveIdsFromOneReservedBlock() {
+        //When
+        Long first = underTest.insertCustomerIfEmailAbsent(newCustomer()).block();
+        Long second = underTest.insertCustomerIfEmailAbsent(newCustomer()).block();
+        //Then
+        assertThat(second).isEqualTo(first + 1);
+    }
+
+    @Test
+    void insertCustomerIfEmailAbsentIsEmptyForTakenEmail() {
+        //Given
+        Customer customer = newCustomer();
+        underTest.insertCustomerIfEmailAbsent(customer).block();
+        //When
+        Long actual = underTest.insertCustomerIfEmailAbsent(new Customer("Other", customer.getEmail(), 30)).block();
+        //Then
+        assertThat(actual).isNull();
+    }
+
+    @Test
+    void selectCustomersPagesByIdAfterCursor() {
+        //Given
+        for (int i = 0; i < 3; i++) {
+            underTest.insertCustomerIfEmailAbsent(newCustomer()).block();
+        }
+        List<Customer> firstPage = underTest.selectCustomers(null, 2).collectList().block();
+        //When
+        List<Customer> secondPage = underTest.selectCustomers(firstPage.get(1).getId(), 2).collectList().block();
+        //Then
+        assertThat(firstPage).hasSize(2);
+        assertThat(secondPage).isNotEmpty();
+        assertThat(secondPage.get(0).getId()).isGreaterThan(firstPage.get(1).getId());
+    }
+
+    @Test
+    void selectCustomerVersionsMatchTheCustomersOfThePage() {
+        //Given
+        for (int i = 0; i < 3; i++) {
+            underTest.insertCustomerIfEmailAbsent(newCustomer()).block();
+        }
+        List<Customer> page = underTest.selectCustomers(null, 2).collectList().block();
+        //When
+        List<CustomerVersion> versions = underTest.selectCustomerVersions(null, 2).collectList().block();
+        //Then
+        assertThat(versions).containsExactly(
+                new CustomerVersion(page.get(0).getId(), page.get(0).getVersion()),
+                new CustomerVersion(page.get(1).getId(), page.get(1).getVersion()));
+    }
+
+    @Test
+    void selectCustomerVersionFollowsUpdates() {
+        //Given
+        Long id = underTest.insertCustomerIfEmailAbsent(newCustomer()).block();
+        Long before = underTest.selectCustomerVersion(id).block();
+        //When
+        underTest.updateCustomerFields(id, "New Name", null, null, null).block();
+        //Then
+        assertThat(underTest.selectCustomerVersion(id).block()).isEqualTo(before + 1);
+        assertThat(underTest.selectCustomerVersion(-1L).block()).isNull();
+    }
+
+    @Test
+    void streamAllCustomersIsOrderedById() {
+        //Given
+        underTest.insertCustomerIfEmailAbsent(newCustomer()).block();
+        underTest.insertCustomerIfEmailAbsent(newCustomer()).block();
+        //When
+        List<Long> ids = underTest.streamAllCustomers().map(Customer::getId).collectList().block();
+        //Then
+        assertThat(ids).hasSizeGreaterThanOrEqualTo(2).isSorted();
+    }
+
+    @Test
+    void deleteCustomerWithId() {
+        //Given
+        Long id = underTest.insertCustomerIfEmailAbsent(newCustomer()).block();
+        //When
+        Customer deleted = underTest.deleteCustomerWithId(id).block();
+        //Then
+        assertThat(deleted.getId()).isEqualTo(id);
+        assertThat(underTest.selectCustomerById(id).block()).isNull();
+        assertThat(underTest.deleteCustomerWithId(id).block()).isNull();
+    }
+
+    @Test
+    void updateCustomerFields() {
+        //Given
+        Customer customer = newCustomer();
+        Long id = underTest.insertCustomerIfEmailAbsent(customer).block();
+        //When
+        CustomerUpdateResult updated = underTest.updateCustomerFields(id, "New Name", null, null, null).block();
+        CustomerUpdateResult unchanged = underTest.updateCustomerFields(id, "New Name", null, null, null).block();
+        CustomerUpdateResult notFound = underTest.updateCustomerFields(-1L, "New Name", null, null, null).block();
+        CustomerUpdateResult stale = underTest.updateCustomerFields(id, "Other Name", null, null, 0L).block();
+        //Then
+        assertThat(updated.status()).isEqualTo(CustomerUpdateResult.Status.UPDATED);
+        assertThat(updated.customer()).isEqualTo(new Customer(id, "New Name", customer.getEmail(), customer.getAge()));
+        assertThat(unchanged.status()).isEqualTo(CustomerUpdateResult.Status.UNCHANGED);
+        assertThat(notFound.status()).isEqualTo(CustomerUpdateResult.Status.NOT_FOUND);
+        assertThat(stale.status()).isEqualTo(CustomerUpdateResult.Status.VERSION_CONFLICT);
+    }
+
+    @Test
+    void updateCustomerFieldsToTakenEmailFails() {
+        //Given
+        Customer taken = newCustomer();
+        underTest.insertCustomerIfEmailAbsent(taken).block();
+        Long id = underTest.insertCustomerIfEmailAbsent(newCustomer()).block();
+        //When
+        //Then
+        assertThatThrownBy(() -> underTest.updateCustomerFields(id, null, taken.getEmail(), null, null).block())
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .hasMessageContaining(Customer.EMAIL_UNIQUE_CONSTRAINT);
+    }
+
+    private static Customer newCustomer() {
+        return new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                FAKER.number().numberBetween(16,99)
+        );
+    }
+}
@@ -1,6 +1,7 @@
 package com.stefco.webapp.dao;
 
 import com.stefco.webapp.AbstractTestContainers;
+import com.stefco.webapp.dao.helpers.CustomerIdAllocator;
 import com.stefco.webapp.model.Customer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,7 +9,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -21,9 +25,11 @@ class CustomerRepositoryTest extends AbstractTestContainers {
 
     @Autowired
     private CustomerRepository underTest;
+    private CustomerIdAllocator customerIdAllocator;
 
     @BeforeEach
     void setUp() {
+        customerIdAllocator = new CustomerIdAllocator(getJdbcTemplate());
     }
 
     @Test
@@ -52,6 +58,34 @@ class CustomerRepositoryTest extends AbstractTestContainers {
         assertThat(actual).isFalse();
     }
 
+    @Test
+    void insertIfEmailAbsentReturnsIdOnlyForNewEmail() {
+        //Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        //When
+        long id = customerIdAllocator.nextId();
+        Optional<Long> first = underTest.insertIfEmailAbsent(id, FAKER.name().fullName(), email, 30);
+        Optional<Long> second = underTest.insertIfEmailAbsent(customerIdAllocator.nextId(), FAKER.name().fullName(), email, 31);
+        //Then
+        assertThat(first).hasValue(id);
+        assertThat(second).isEmpty();
+        assertThat(underTest.findById(first.get())).hasValueSatisfying(c ->
+                assertThat(c.getEmail()).isEqualTo(email));
+    }
+
+    @Test
+    void findVersionsReadOnlyIdAndVersion() {
+        //Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Long id = underTest.insertIfEmailAbsent(customerIdAllocator.nextId(), FAKER.name().fullName(), email, 30).orElseThrow();
+        //When
+        Optional<Long> version = underTest.findVersionById(id);
+        List<CustomerVersion> versions = underTest.findVersionsByIdGreaterThan(id - 1, PageRequest.of(0, 1, Sort.by("id")));
+        //Then
+        assertThat(version).hasValue(0L);
+        assertThat(versions).containsExactly(new CustomerVersion(id, 0L));
+    }
+
     @Test
     void existsCustomerById() {
         //Given
@@ -82,4 +116,20 @@ class CustomerRepositoryTest extends AbstractTestContainers {
         //Then
         assertThat(actual).isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    void searchFindsMisspelledNamesBestMatchFirst() {
+        //Given
+        String term = FAKER.letterify("??????????");
+        Customer exact = underTest.save(new Customer(term + " Smith", FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 20));
+        Customer typo = underTest.save(new Customer(term.substring(0, 9) + "z Jones", FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 21));
+        underTest.flush();
+        //When
+        List<CustomerRepository.CustomerMatchRow> actual = underTest.search(term, Float.MAX_VALUE, 0L, 10);
+        //Then
+        assertThat(actual).extracting(CustomerRepository.CustomerMatchRow::getId).containsExactly(exact.getId(), typo.getId());
+        assertThat(actual.get(0).getScore()).isEqualTo(1f);
+        assertThat(underTest.search(term, 1f, exact.getId(), 10))
+                .extracting(CustomerRepository.CustomerMatchRow::getId).containsExactly(typo.getId());
+    }
+}
@@ -0,0 +1,66 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.AbstractTestContainers;
+import com.stefco.webapp.dao.helpers.CustomerIdAllocator;
+import com.stefco.webapp.model.Customer;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// runs the criteria queries built from CustomerSpecifications through CustomerDaoImpJPA against PostgreSQL
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CustomerSpecificationsTest extends AbstractTestContainers {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private EntityManager entityManager;
+    private CustomerDaoImpJPA underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerDaoImpJPA(customerRepository, entityManager, new CustomerIdAllocator(getJdbcTemplate()));
+    }
+
+    @Test
+    void selectCustomersByQueryPagesByNameWithTiesBrokenById() {
+        //Given
+        String prefix = FAKER.letterify("??????????");
+        List<Customer> customers = new ArrayList<>();
+        for (String suffix : new String[]{"b", "a", "b", "c"}) {
+            customers.add(customerRepository.save(new Customer(
+                    prefix + suffix, FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 30)));
+        }
+        CustomerQuery query = new CustomerQuery(null, 30, null, prefix, CustomerSort.NAME, false);
+        List<Customer> firstPage = underTest.selectCustomers(query, null, 2);
+        //When
+        List<Customer> actual = underTest.selectCustomers(query, firstPage.get(1), 2);
+        //Then
+        assertThat(firstPage).containsExactly(customers.get(1), customers.get(0));
+        assertThat(actual).containsExactly(customers.get(2), customers.get(3));
+    }
+
+    @Test
+    void selectCustomersByQueryFiltersByAgeRangeAndLiteralPrefix() {
+        //Given
+        String prefix = FAKER.letterify("??????????");
+        Customer young = customerRepository.save(new Customer(prefix + "_a", FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 18));
+        Customer inRange = customerRepository.save(new Customer(prefix + "_b", FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 30));
+        Customer wildcard = customerRepository.save(new Customer(prefix + "xb", FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 30));
+        //When
+        List<Customer> actual = underTest.selectCustomers(
+                new CustomerQuery(20, 40, null, prefix + "_", CustomerSort.ID, true), null, 10);
+        //Then
+        assertThat(actual).containsExactly(inRange).doesNotContain(young, wildcard);
+    }
+}
@@ -0,0 +1,221 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.AbstractTestContainers;
+import com.stefco.webapp.dao.helpers.CustomerIdAllocator;
+import com.stefco.webapp.dao.helpers.CustomerRowMapper;
+import com.stefco.webapp.model.Customer;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// the counters are maintained by triggers, so they are checked after writes through the DAOs; the tests run
+// outside a test transaction so every write commits and the concurrent ones overlap like real requests;
+// WRITERS connections are more than the 16 counter slots, so some of them are bound to share one
+@DataJpaTest(properties = "spring.datasource.hikari.maximum-pool-size=" + CustomerStatisticsDaoTest.WRITERS)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomerStatisticsDaoTest extends AbstractTestContainers {
+
+    static final int WRITERS = 32;
+    private static final int AGES = 50;
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private CustomerStatisticsDao underTest;
+    private CustomerDaoImplJdbc customerDao;
+    private CustomerDaoImpJPA customerDaoJpa;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        underTest = new CustomerStatisticsDao(jdbcTemplate);
+        CustomerIdAllocator customerIdAllocator = new CustomerIdAllocator(jdbcTemplate);
+        customerDao = new CustomerDaoImplJdbc(jdbcTemplate, new CustomerRowMapper(), customerIdAllocator);
+        customerDaoJpa = new CustomerDaoImpJPA(customerRepository, entityManager, customerIdAllocator);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void ageHistogramFollowsInsertsUpdatesAndDeletes() {
+        //Given
+        // ages no other test uses, so the counts start at zero
+        int age = FAKER.number().numberBetween(1_000, 500_000) * 2;
+        int newAge = age + 1;
+        Customer first = new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), age);
+        Customer second = new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), age);
+        customerDao.insertCustomers(List.of(first, second));
+        //When
+        customerDao.updateCustomerFields(first.getId(), null, null, newAge, null);
+        customerDao.updateCustomerFields(second.getId(), "renamed", null, null, null);
+        customerDao.deleteCustomerWithId(second.getId());
+        //Then
+        assertThat(underTest.selectAgeHistogram())
+                .containsEntry(newAge, 1L)
+                .doesNotContainKey(age);
+    }
+
+    @Test
+    void createdCountsIncludeCustomersCreatedToday() {
+        //Given
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        long before = underTest.selectCreatedCounts(CustomerStatisticsDao.Period.DAY, today, today.plusDays(1))
+                .getOrDefault(today, 0L);
+        //When
+        customerDao.insertCustomers(List.of(
+                new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 30),
+                new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 31)));
+        //Then
+        assertThat(underTest.selectCreatedCounts(CustomerStatisticsDao.Period.DAY, today, today.plusDays(1)))
+                .containsEntry(today, before + 2);
+        assertThat(underTest.selectCreatedCounts(CustomerStatisticsDao.Period.MONTH, today.withDayOfMonth(1), today.plusDays(1)))
+                .containsKey(today.withDayOfMonth(1));
+    }
+
+    @Test
+    void counterRowsStayUnlockedUntilTheWritingTransactionCommits() {
+        //Given
+        int age = FAKER.number().numberBetween(1_000, 500_000) * 2;
+        JdbcTemplate otherConnection = getJdbcTemplate();
+        // a counter row for every slot, whichever one the writing connection maps to
+        for (int slot = 0; slot < 16; slot++) {
+            otherConnection.update("INSERT INTO customer_age_count (age, slot, customers) VALUES (?, ?, 0)", age, slot);
+        }
+        //When
+        transactionTemplate.executeWithoutResult(status -> {
+            customerDao.insertCustomers(List.of(new Customer("Staged", UUID.randomUUID() + "@test.com", age)));
+            //Then
+            // NOWAIT fails if any of them is locked
+            assertThat(otherConnection.queryForList(
+                    "SELECT slot FROM customer_age_count WHERE age = ? FOR UPDATE NOWAIT", Integer.class, age))
+                    .hasSize(16);
+            assertThat(underTest.selectAgeHistogram()).doesNotContainKey(age);
+        });
+        assertThat(underTest.selectAgeHistogram()).containsEntry(age, 1L);
+    }
+
+    // every batch touches many counter rows in its own order, backends sharing a slot must not deadlock on them
+    @Test
+    void concurrentMultiAgeBatchesKeepExactCounts() throws Exception {
+        assertCountsAfterConcurrentRounds(WRITERS, 10, (random, firstAge, expected) -> {
+            List<Customer> batch = newBatch(random, random.nextInt(10, 40), firstAge);
+            customerDao.insertCustomers(batch);
+            batch.forEach(customer -> expected.merge(customer.getAge(), 1L, Long::sum));
+            moveAndDelete(random, batch, firstAge, expected);
+        });
+    }
+
+    // 1000 rows are two insert statements, and the update and delete follow in the same transaction;
+    // counter rows must not stay locked from one statement to the next
+    @Test
+    void concurrentMultiStatementTransactionsKeepExactCounts() throws Exception {
+        assertCountsAfterConcurrentRounds(WRITERS, 2, (random, firstAge, expected) -> transactionTemplate.executeWithoutResult(status -> {
+            List<Customer> batch = newBatch(random, 1_000, firstAge);
+            customerDao.insertCustomers(batch);
+            batch.forEach(customer -> expected.merge(customer.getAge(), 1L, Long::sum));
+            moveAndDelete(random, batch, firstAge, expected);
+        }));
+    }
+
+    // saveAll flushes one insert statement per customer, each firing the statement trigger on its own
+    @Test
+    void concurrentJpaBatchesKeepExactCounts() throws Exception {
+        assertCountsAfterConcurrentRounds(WRITERS, 3, (random, firstAge, expected) -> transactionTemplate.executeWithoutResult(status -> {
+            List<Customer> batch = newBatch(random, 100, firstAge);
+            customerDaoJpa.insertCustomers(batch);
+            batch.forEach(customer -> expected.merge(customer.getAge(), 1L, Long::sum));
+        }));
+    }
+
+    @FunctionalInterface
+    private interface Round {
+        // adds what it changed to expected
+        void write(ThreadLocalRandom random, int firstAge, Map<Integer, Long> expected);
+    }
+
+    private void assertCountsAfterConcurrentRounds(int threads, int rounds, Round round) throws Exception {
+        //Given
+        // ages no other test uses, so the counts start at zero
+        int firstAge = FAKER.number().numberBetween(1_000, 500_000) * 2 + 1_000_000;
+        Map<Integer, Long> expected = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        //When
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < rounds; i++) {
+                        round.write(ThreadLocalRandom.current(), firstAge, expected);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        //Then
+        Map<Integer, Long> histogram = underTest.selectAgeHistogram();
+        expected.forEach((age, customers) -> {
+            if (customers == 0) {
+                assertThat(histogram).doesNotContainKey(age);
+            } else {
+                assertThat(histogram).containsEntry(age, customers);
+            }
+        });
+    }
+
+    private static List<Customer> newBatch(ThreadLocalRandom random, int size, int firstAge) {
+        List<Customer> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            batch.add(new Customer("Batch", UUID.randomUUID() + "@test.com", firstAge + random.nextInt(AGES)));
+        }
+        return batch;
+    }
+
+    // moves the first customer to another age and deletes a random half of the rest
+    private void moveAndDelete(ThreadLocalRandom random, List<Customer> batch, int firstAge, Map<Integer, Long> expected) {
+        Customer moved = batch.get(0);
+        int newAge = firstAge + random.nextInt(AGES);
+        customerDao.updateCustomerFields(moved.getId(), null, null, newAge, null);
+        expected.merge(moved.getAge(), -1L, Long::sum);
+        expected.merge(newAge, 1L, Long::sum);
+
+        List<Customer> deleted = customerDao.deleteCustomersWithIds(
+                batch.subList(1, batch.size()).stream().filter(c -> random.nextBoolean()).map(Customer::getId).toList());
+        deleted.forEach(customer -> expected.merge(customer.getAge(), -1L, Long::sum));
+    }
+}
@@ -0,0 +1,156 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.model.Customer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.stubbing.Answer;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class GroupCommitCustomerDaoTest {
+
+    private static final int WRITERS = 8;
+
+    private SimpleMeterRegistry meterRegistry;
+    @Mock
+    private CustomerDao customerDao;
+    private AutoCloseable autoCloseable;
+    private ExecutorService executor;
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    @BeforeEach
+    void setUp() {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(WRITERS);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.shutdownNow();
+        autoCloseable.close();
+    }
+
+    @Test
+    void concurrentInsertsAreWrittenByOneBatch() throws Exception {
+        //Given
+        // a long delay, so the leader only writes once every writer has queued its row
+        GroupCommitCustomerDao underTest = new GroupCommitCustomerDao(customerDao, WRITERS, Duration.ofSeconds(5), meterRegistry);
+        when(customerDao.insertCustomers(anyList())).thenAnswer(insertAllBut("taken@gmail.com"));
+        //When
+        List<Future<Optional<Long>>> inserts = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            String email = i == 3 ? "taken@gmail.com" : "alex" + i + "@gmail.com";
+            inserts.add(executor.submit(() -> underTest.insertCustomerIfEmailAbsent(new Customer(null, "Alex", email, 32))));
+        }
+        //Then
+        List<Optional<Long>> ids = new ArrayList<>();
+        for (Future<Optional<Long>> insert : inserts) {
+            ids.add(insert.get(5, TimeUnit.SECONDS));
+        }
+        assertThat(ids.get(3)).isEmpty();
+        assertThat(ids).filteredOn(Optional::isPresent).hasSize(WRITERS - 1).doesNotHaveDuplicates();
+        verify(customerDao, times(1)).insertCustomers(anyList());
+        verify(customerDao, never()).insertCustomerIfEmailAbsent(any());
+        assertThat(meterRegistry.summary(GroupCommitCustomerDao.METRIC_NAME).max()).isEqualTo(WRITERS);
+    }
+
+    @Test
+    void everyQueuedInsertIsWrittenInBatchesOfAtMostMaxBatchSize() throws Exception {
+        //Given
+        GroupCommitCustomerDao underTest = new GroupCommitCustomerDao(customerDao, 2, Duration.ZERO, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        Answer<List<Boolean>> insert = insertAllBut(null);
+        when(customerDao.insertCustomers(anyList())).thenAnswer(invocation -> {
+            // holds the first batch so the other writers queue up behind it
+            release.await(5, TimeUnit.SECONDS);
+            return insert.answer(invocation);
+        });
+        //When
+        List<Future<Optional<Long>>> inserts = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            String email = "alex" + i + "@gmail.com";
+            inserts.add(executor.submit(() -> underTest.insertCustomerIfEmailAbsent(new Customer(null, "Alex", email, 32))));
+        }
+        release.countDown();
+        //Then
+        for (Future<Optional<Long>> future : inserts) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).isPresent();
+        }
+        assertThat(meterRegistry.summary(GroupCommitCustomerDao.METRIC_NAME).totalAmount()).isEqualTo(WRITERS);
+        assertThat(meterRegistry.summary(GroupCommitCustomerDao.METRIC_NAME).max()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void failedBatchIsRetriedRowByRow() throws Exception {
+        //Given
+        GroupCommitCustomerDao underTest = new GroupCommitCustomerDao(customerDao, 2, Duration.ofSeconds(5), meterRegistry);
+        Customer good = new Customer(null, "Alex", "alex@gmail.com", 32);
+        Customer bad = new Customer(null, "Jamila", "jamila@gmail.com", -1);
+        when(customerDao.insertCustomers(anyList())).thenThrow(new DataIntegrityViolationException("check constraint"));
+        when(customerDao.insertCustomerIfEmailAbsent(good)).thenReturn(Optional.of(7L));
+        when(customerDao.insertCustomerIfEmailAbsent(bad)).thenThrow(new DataIntegrityViolationException("check constraint"));
+        //When
+        Future<Optional<Long>> goodInsert = executor.submit(() -> underTest.insertCustomerIfEmailAbsent(good));
+        Future<Optional<Long>> badInsert = executor.submit(() -> underTest.insertCustomerIfEmailAbsent(bad));
+        //Then
+        assertThat(goodInsert.get(5, TimeUnit.SECONDS)).hasValue(7L);
+        assertThatThrownBy(() -> badInsert.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(DataIntegrityViolationException.class);
+        verify(customerDao, times(1)).insertCustomers(anyList());
+    }
+
+    @Test
+    void insertsInsideATransactionAreNotBatched() {
+        //Given
+        GroupCommitCustomerDao underTest = new GroupCommitCustomerDao(customerDao, WRITERS, Duration.ofSeconds(5), meterRegistry);
+        Customer customer = new Customer(null, "Alex", "alex@gmail.com", 32);
+        when(customerDao.insertCustomerIfEmailAbsent(customer)).thenReturn(Optional.of(1L));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            //When
+            Optional<Long> actual = underTest.insertCustomerIfEmailAbsent(customer);
+            //Then
+            assertThat(actual).hasValue(1L);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        verify(customerDao, never()).insertCustomers(anyList());
+    }
+
+    // gives every row an id like the real DAOs, except the one with takenEmail
+    private Answer<List<Boolean>> insertAllBut(String takenEmail) {
+        return invocation -> {
+            List<Customer> customers = invocation.getArgument(0);
+            List<Boolean> inserted = new ArrayList<>();
+            for (Customer customer : customers) {
+                boolean created = !customer.getEmail().equals(takenEmail);
+                if (created) {
+                    customer.setId(nextId.getAndIncrement());
+                }
+                inserted.add(created);
+            }
+            return inserted;
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package com.stefco.webapp.dao;
+
+import com.stefco.webapp.model.Customer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+class TimedCustomerDaoTest {
+
+    private TimedCustomerDao underTest;
+    private SimpleMeterRegistry meterRegistry;
+    @Mock
+    private CustomerDao customerDao;
+    private AutoCloseable autoCloseable;
+
+    @BeforeEach
+    void setUp() {
+        autoCloseable = MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new TimedCustomerDao(customerDao, "jdbc", meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        autoCloseable.close();
+    }
+
+    @Test
+    void selectCustomerByIdIsTaggedWithHitOrMiss() {
+        //Given
+        when(customerDao.selectCustomerById(1L)).thenReturn(Optional.of(new Customer(1L, "Alex", "alex@gmail.com", 32)));
+        when(customerDao.selectCustomerById(2L)).thenReturn(Optional.empty());
+        //When
+        underTest.selectCustomerById(1L);
+        underTest.selectCustomerById(2L);
+        underTest.selectCustomerById(2L);
+        //Then
+        assertThat(count("selectCustomerById", "hit")).isEqualTo(1);
+        assertThat(count("selectCustomerById", "miss")).isEqualTo(2);
+    }
+
+    @Test
+    void constraintViolationIsRecordedAsConflict() {
+        //Given
+        when(customerDao.updateCustomerFields(1L, null, "taken@gmail.com", null, null)).thenThrow(new DuplicateKeyException("taken"));
+        //When
+        assertThatThrownBy(() -> underTest.updateCustomerFields(1L, null, "taken@gmail.com", null, null))
+                .isInstanceOf(DuplicateKeyException.class);
+        //Then
+        assertThat(count("updateCustomerFields", "conflict")).isEqualTo(1);
+    }
+
+    @Test
+    void updateOutcomeFollowsResultStatus() {
+        //Given
+        when(customerDao.updateCustomerFields(1L, "New", null, null, null)).thenReturn(CustomerUpdateResult.notFound());
+        //When
+        underTest.updateCustomerFields(1L, "New", null, null, null);
+        //Then
+        assertThat(count("updateCustomerFields", "not-found")).isEqualTo(1);
+    }
+
+    private long count(String method, String outcome) {
+        return meterRegistry.get("customer.dao")
+                .tag("method", method)
+                .tag("implementation", "jdbc")
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+}
@@ -0,0 +1,50 @@
+package com.stefco.webapp.dao.helpers;
+
+import com.stefco.webapp.AbstractTestContainers;
+import com.stefco.webapp.model.Customer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerIdAllocatorTest extends AbstractTestContainers {
+
+    private CustomerIdAllocator underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerIdAllocator(getJdbcTemplate());
+    }
+
+    @Test
+    void nextIdsAreConsecutiveWithinABlock() {
+        //When
+        long first = underTest.nextId();
+        long second = underTest.nextId();
+        //Then
+        assertThat(second).isEqualTo(first + 1);
+    }
+
+    @Test
+    void nextIdsSpanningBlocksAreUnique() {
+        //When
+        long[] actual = underTest.nextIds(Customer.ID_ALLOCATION_SIZE * 3 + 7);
+        //Then
+        assertThat(Arrays.stream(actual).distinct().count()).isEqualTo(actual.length);
+    }
+
+    @Test
+    void idsDoNotOverlapWithOtherAllocators() {
+        //Given
+        CustomerIdAllocator other = new CustomerIdAllocator(getJdbcTemplate());
+        //When
+        long[] mine = underTest.nextIds(Customer.ID_ALLOCATION_SIZE);
+        long[] theirs = other.nextIds(Customer.ID_ALLOCATION_SIZE);
+        Long sequenceDefault = getJdbcTemplate().queryForObject("SELECT nextval('customer_id_seq')", Long.class);
+        //Then
+        assertThat(mine).doesNotContain(theirs).doesNotContain(sequenceDefault);
+        assertThat(theirs).doesNotContain(sequenceDefault);
+    }
+}
@@ -2,26 +2,31 @@ package com.stefco.webapp.dao.helpers;
 
 import com.stefco.webapp.model.Customer;
 import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowMapper;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.junit.jupiter.api.Assertions.*;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class CustomerRowMapperTest {
 
+    private final CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+
     @Test
     void mapRow() throws SQLException {
         //Given
-        CustomerRowMapper customerRowMapper = new CustomerRowMapper();
         ResultSet resultSet = mock(ResultSet.class);
         when(resultSet.getLong("id")).thenReturn(1L);
         when(resultSet.getString("name")).thenReturn("Alex");
         when(resultSet.getString("email")).thenReturn("alex@gmail.com");
         when(resultSet.getInt("age")).thenReturn(33);
+        when(resultSet.getLong("version")).thenReturn(2L);
 
         //When
         Customer actual = customerRowMapper.mapRow(resultSet, 1);
@@ -29,5 +34,86 @@ class CustomerRowMapperTest {
         //Then
         Customer expected = new Customer((long) 1,"Alex","alex@gmail.com", 33);
         assertThat(actual).isEqualTo(expected);
+        assertThat(actual.getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void mapRowFailsOnColumnMissingFromTheResultSet() throws SQLException {
+        //Given
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getString("email")).thenThrow(new SQLException("The column name email was not found in this ResultSet."));
+
+        //When
+        //Then
+        assertThatThrownBy(() -> customerRowMapper.mapRow(resultSet, 1))
+                .isInstanceOf(SQLException.class)
+                .hasMessageContaining("email");
+    }
+
+    @Test
+    void forQueryResolvesColumnsOnceAndReadsByIndex() throws SQLException {
+        //Given
+        // columns in a different order than the mapper declares them
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.findColumn("version")).thenReturn(1);
+        when(resultSet.findColumn("age")).thenReturn(2);
+        when(resultSet.findColumn("email")).thenReturn(3);
+        when(resultSet.findColumn("name")).thenReturn(4);
+        when(resultSet.findColumn("id")).thenReturn(5);
+        when(resultSet.getLong(1)).thenReturn(2L);
+        when(resultSet.getInt(2)).thenReturn(33);
+        when(resultSet.getString(3)).thenReturn("alex@gmail.com");
+        when(resultSet.getString(4)).thenReturn("Alex");
+        when(resultSet.getLong(5)).thenReturn(1L);
+        RowMapper<Customer> rowMapper = customerRowMapper.forQuery();
+
+        //When
+        Customer first = rowMapper.mapRow(resultSet, 1);
+        Customer second = rowMapper.mapRow(resultSet, 2);
+
+        //Then
+        Customer expected = new Customer((long) 1,"Alex","alex@gmail.com", 33);
+        assertThat(first).isEqualTo(expected);
+        assertThat(first.getVersion()).isEqualTo(2L);
+        assertThat(second).isEqualTo(expected);
+        verify(resultSet, times(1)).findColumn("id");
+        verify(resultSet, times(1)).findColumn("version");
+    }
+
+    @Test
+    void forQueryResolvesColumnsAgainForAnotherResultSet() throws SQLException {
+        //Given
+        ResultSet first = resultSetWithIdAt(1, 10L);
+        ResultSet second = resultSetWithIdAt(5, 20L);
+        RowMapper<Customer> rowMapper = customerRowMapper.forQuery();
+
+        //When
+        Customer fromFirst = rowMapper.mapRow(first, 1);
+        Customer fromSecond = rowMapper.mapRow(second, 1);
+
+        //Then
+        assertThat(fromFirst.getId()).isEqualTo(10L);
+        assertThat(fromSecond.getId()).isEqualTo(20L);
+    }
+
+    @Test
+    void forQueryFailsOnColumnMissingFromTheResultSet() throws SQLException {
+        //Given
+        // a projection without email must not map to a customer with a null email
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.findColumn("email")).thenThrow(new SQLException("The column name email was not found in this ResultSet."));
+
+        //When
+        //Then
+        assertThatThrownBy(() -> customerRowMapper.forQuery().mapRow(resultSet, 1))
+                .isInstanceOf(SQLException.class)
+                .hasMessageContaining("email");
+    }
+
+    private static ResultSet resultSetWithIdAt(int position, long id) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.findColumn("id")).thenReturn(position);
+        when(resultSet.getLong(position)).thenReturn(id);
+        return resultSet;
     }
-}
\ No newline at end of file
+}
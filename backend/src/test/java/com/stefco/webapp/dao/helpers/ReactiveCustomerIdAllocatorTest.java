@@ -0,0 +1,56 @@
+package com.stefco.webapp.dao.helpers;
+
+import com.stefco.webapp.AbstractTestContainers;
+import com.stefco.webapp.model.Customer;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveCustomerIdAllocatorTest extends AbstractTestContainers {
+
+    private ReactiveCustomerIdAllocator underTest;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(postgreSQLContainer.getJdbcUrl().replace("jdbc:", "r2dbc:"))
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, postgreSQLContainer.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, postgreSQLContainer.getPassword())
+                .build();
+        underTest = new ReactiveCustomerIdAllocator(DatabaseClient.create(ConnectionFactories.get(options)));
+    }
+
+    @Test
+    void nextIdsAreConsecutiveWithinABlock() {
+        //When
+        long first = underTest.nextId().block();
+        long second = underTest.nextId().block();
+        //Then
+        assertThat(second).isEqualTo(first + 1);
+    }
+
+    @Test
+    void concurrentIdsSpanningBlocksAreUniqueAndDoNotOverlapWithOtherAllocators() {
+        //Given
+        CustomerIdAllocator other = new CustomerIdAllocator(getJdbcTemplate());
+        int count = Customer.ID_ALLOCATION_SIZE * 3 + 7;
+        //When
+        List<Long> actual = Flux.range(0, count)
+                .flatMap(i -> underTest.nextId(), 16)
+                .collectList()
+                .block();
+        long[] theirs = other.nextIds(Customer.ID_ALLOCATION_SIZE);
+        //Then
+        assertThat(actual).hasSize(count).doesNotHaveDuplicates();
+        for (long id : theirs) {
+            assertThat(actual).doesNotContain(id);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.stefco.webapp.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private ReplicaRoutingDataSource underTest;
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection firstReplicaConnection = mock(Connection.class);
+    private final Connection secondReplicaConnection = mock(Connection.class);
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", dataSourceReturning(firstReplicaConnection));
+        replicas.put("replica-1", dataSourceReturning(secondReplicaConnection));
+        underTest = new ReplicaRoutingDataSource(dataSourceReturning(primaryConnection), replicas);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    void writesGoToPrimary() throws SQLException {
+        //When
+        Connection actual = underTest.getConnection();
+        //Then
+        assertThat(actual).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void readOnlyTransactionsAlternateBetweenReplicas() throws SQLException {
+        //Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        //When
+        Connection first = underTest.getConnection();
+        Connection second = underTest.getConnection();
+        //Then
+        assertThat(first).isSameAs(firstReplicaConnection);
+        assertThat(second).isSameAs(secondReplicaConnection);
+    }
+
+    @Test
+    void unavailableReplicaIsSkipped() throws SQLException {
+        //Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        underTest.setReplicaAvailable("replica-0", false);
+        //When
+        Connection first = underTest.getConnection();
+        Connection second = underTest.getConnection();
+        //Then
+        assertThat(first).isSameAs(secondReplicaConnection);
+        assertThat(second).isSameAs(secondReplicaConnection);
+    }
+
+    @Test
+    void fallsBackToPrimaryWithoutAvailableReplica() throws SQLException {
+        //Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        underTest.setReplicaAvailable("replica-0", false);
+        underTest.setReplicaAvailable("replica-1", false);
+        //When
+        Connection actual = underTest.getConnection();
+        //Then
+        assertThat(actual).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void pinnedReadsGoToPrimary() throws SQLException {
+        //Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        ReadYourWrites.pinToPrimary();
+        //When
+        Connection actual = underTest.getConnection();
+        //Then
+        assertThat(actual).isSameAs(primaryConnection);
+    }
+
+    private static DataSource dataSourceReturning(Connection connection) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
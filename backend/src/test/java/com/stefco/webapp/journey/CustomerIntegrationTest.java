@@ -3,16 +3,24 @@ package com.stefco.webapp.journey;
 import com.github.javafaker.Faker;
 import com.github.javafaker.Name;
 import com.stefco.webapp.dto.CustomerDto;
+import com.stefco.webapp.dto.CustomerLookup;
+import com.stefco.webapp.dto.CustomerPage;
+import com.stefco.webapp.dto.CustomerQueryPage;
+import com.stefco.webapp.dto.CustomerSearchPage;
+import com.stefco.webapp.dto.CustomerStatistics;
 import com.stefco.webapp.model.Customer;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
 
@@ -47,16 +55,7 @@ public class CustomerIntegrationTest {
                 .isOk();
 
         // get all customers
-        List<Customer> allCustomersResponse = webTestClient.get()
-                .uri(URI)
-                .accept(MediaType.APPLICATION_JSON)
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<Customer>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<Customer> allCustomersResponse = getAllCustomers();
 
         // make sure that customer is present
         Customer expectedCustomer = new Customer(name, email, age);
@@ -104,16 +103,7 @@ public class CustomerIntegrationTest {
                 .isOk();
 
         // get all customers
-        List<Customer> allCustomersResponse = webTestClient.get()
-                .uri(URI)
-                .accept(MediaType.APPLICATION_JSON)
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<Customer>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<Customer> allCustomersResponse = getAllCustomers();
 
         long id = allCustomersResponse.stream()
                 .filter(customer -> customer.getEmail().equals(email))
@@ -158,16 +148,7 @@ public class CustomerIntegrationTest {
                 .isOk();
 
         // get all customers
-        List<Customer> allCustomersResponse = webTestClient.get()
-                .uri(URI)
-                .accept(MediaType.APPLICATION_JSON)
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<Customer>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<Customer> allCustomersResponse = getAllCustomers();
 
         long id = allCustomersResponse.stream()
                 .filter(customer -> customer.getEmail().equals(email))
@@ -203,4 +184,306 @@ public class CustomerIntegrationTest {
 
         assertThat(updatedCustomer).isEqualTo(expectedCustomer);
     }
+
+    @Test
+    void getCustomerAnswersNotModifiedWhileETagIsCurrent() {
+        //create registration request
+        Faker faker = new Faker();
+        Name fakerName = faker.name();
+        String email = fakerName.firstName() + "." + fakerName.lastName() + UUID.randomUUID() + "@test.com";
+        CustomerDto customerDto = new CustomerDto(fakerName.fullName(), email, RANDOM.nextInt(16,99));
+        webTestClient.post()
+                .uri(URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(customerDto), CustomerDto.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        long id = getAllCustomers().stream()
+                .filter(customer -> customer.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        // first read hands out the ETag
+        String etag = webTestClient.get()
+                .uri(URI + "/{id}", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Customer.class)
+                .getResponseHeaders()
+                .getETag();
+        assertThat(etag).isNotNull();
+
+        // polling with it costs no body
+        webTestClient.get()
+                .uri(URI + "/{id}", id)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectBody()
+                .isEmpty();
+
+        // until the customer changes
+        webTestClient.put()
+                .uri(URI + "/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerDto("Ali", null, null)), CustomerDto.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        webTestClient.get()
+                .uri(URI + "/{id}", id)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .value(HttpHeaders.ETAG, newETag -> assertThat(newETag).isNotEqualTo(etag));
+    }
+
+    @Test
+    void updateWithIfMatchFailsOnceCustomerChanged() {
+        //create registration request
+        Faker faker = new Faker();
+        Name fakerName = faker.name();
+        String email = fakerName.firstName() + "." + fakerName.lastName() + UUID.randomUUID() + "@test.com";
+        CustomerDto customerDto = new CustomerDto(fakerName.fullName(), email, RANDOM.nextInt(16,99));
+        webTestClient.post()
+                .uri(URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(customerDto), CustomerDto.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        long id = getAllCustomers().stream()
+                .filter(customer -> customer.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        String etag = webTestClient.get()
+                .uri(URI + "/{id}", id)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Customer.class)
+                .getResponseHeaders()
+                .getETag();
+
+        // the first writer holding the ETag wins and gets the next one
+        String newETag = webTestClient.put()
+                .uri(URI + "/{id}", id)
+                .header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerDto("Ali", null, null)), CustomerDto.class)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Void.class)
+                .getResponseHeaders()
+                .getETag();
+        assertThat(newETag).isNotEqualTo(etag);
+
+        // a second writer with the same ETag would overwrite a change it never saw
+        webTestClient.put()
+                .uri(URI + "/{id}", id)
+                .header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerDto("Bob", null, null)), CustomerDto.class)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(412);
+    }
+
+    @Test
+    void canGetManyCustomersByIds() {
+        //create registration requests
+        Faker faker = new Faker();
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Name fakerName = faker.name();
+            String email = fakerName.firstName() + "." + fakerName.lastName() + UUID.randomUUID() + "@test.com";
+            emails.add(email);
+            webTestClient.post()
+                    .uri(URI)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Mono.just(new CustomerDto(fakerName.fullName(), email, RANDOM.nextInt(16,99))), CustomerDto.class)
+                    .exchange()
+                    .expectStatus()
+                    .isOk();
+        }
+        List<Long> ids = getAllCustomers().stream()
+                .filter(customer -> emails.contains(customer.getEmail()))
+                .map(Customer::getId)
+                .toList();
+
+        // ask for them backwards with an id that does not exist in between
+        CustomerLookup lookup = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(URI)
+                        .queryParam("ids", ids.get(2), -1L, ids.get(1), ids.get(0))
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(CustomerLookup.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(lookup.getCustomers()).extracting(Customer::getId).containsExactly(ids.get(2), ids.get(1), ids.get(0));
+        assertThat(lookup.getMissingIds()).containsExactly(-1L);
+    }
+
+    @Test
+    void canSearchCustomersByMisspelledName() {
+        //create a customer with a name nobody else has
+        Faker faker = new Faker();
+        String name = faker.letterify("??????????") + " " + faker.name().lastName();
+        String email = faker.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        webTestClient.post()
+                .uri(URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerDto(name, email, RANDOM.nextInt(16,99))), CustomerDto.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        // the last letter of the first name is wrong
+        String term = name.substring(0, 9) + "z";
+        CustomerSearchPage page = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(URI + "/search").queryParam("q", term).build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(CustomerSearchPage.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(page.getCustomers()).extracting(Customer::getEmail).containsExactly(email);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void canQueryCustomersByNamePrefixAndAge() {
+        //create customers sharing a name prefix nobody else has
+        Faker faker = new Faker();
+        String prefix = faker.letterify("??????????");
+        for (int age : new int[]{25, 35, 45}) {
+            webTestClient.post()
+                    .uri(URI)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Mono.just(new CustomerDto(prefix + " " + faker.name().lastName(),
+                            faker.internet().safeEmailAddress() + "-" + UUID.randomUUID(), age)), CustomerDto.class)
+                    .exchange()
+                    .expectStatus()
+                    .isOk();
+        }
+
+        CustomerQueryPage page = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(URI + "/query")
+                        .queryParam("namePrefix", prefix)
+                        .queryParam("minAge", 30)
+                        .queryParam("sort", "age")
+                        .queryParam("order", "desc")
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(CustomerQueryPage.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(page.getCustomers()).extracting(Customer::getAge).containsExactly(45, 35);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void statisticsCountANewCustomer() {
+        CustomerStatistics before = getStatistics();
+
+        //create registration request
+        Faker faker = new Faker();
+        webTestClient.post()
+                .uri(URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerDto(faker.name().fullName(),
+                        faker.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 42)), CustomerDto.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        CustomerStatistics after = getStatistics();
+        assertThat(after.getTotal()).isEqualTo(before.getTotal() + 1);
+        assertThat(after.getAgeHistogram().get(42)).isEqualTo(before.getAgeHistogram().getOrDefault(42, 0L) + 1);
+    }
+
+    @Test
+    void getCustomersAnswersNotModifiedWhileETagIsCurrent() {
+        String uri = URI + "?cursor=" + Long.MAX_VALUE;
+        String etag = webTestClient.get()
+                .uri(uri)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(CustomerPage.class)
+                .getResponseHeaders()
+                .getETag();
+
+        webTestClient.get()
+                .uri(uri)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+    }
+
+    private CustomerStatistics getStatistics() {
+        return webTestClient.get()
+                .uri(URI + "/statistics")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(CustomerStatistics.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private List<Customer> getAllCustomers() {
+        List<Customer> customers = new ArrayList<>();
+        Long cursor = null;
+        do {
+            Long currentCursor = cursor;
+            CustomerPage page = webTestClient.get()
+                    .uri(uriBuilder -> uriBuilder.path(URI)
+                            .queryParam("limit", 1000)
+                            .queryParamIfPresent("cursor", Optional.ofNullable(currentCursor))
+                            .build())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus()
+                    .isOk()
+                    .expectBody(CustomerPage.class)
+                    .returnResult()
+                    .getResponseBody();
+            customers.addAll(page.getCustomers());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return customers;
+    }
 }
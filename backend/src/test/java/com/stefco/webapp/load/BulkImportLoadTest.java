@@ -0,0 +1,85 @@
+package com.stefco.webapp.load;
+
+import com.stefco.webapp.AbstractTestContainers;
+import com.stefco.webapp.dao.CustomerBulkImporter;
+import com.stefco.webapp.dao.CustomerDaoImplJdbc;
+import com.stefco.webapp.dao.helpers.CustomerIdAllocator;
+import com.stefco.webapp.dao.helpers.CustomerRowMapper;
+import com.stefco.webapp.model.Customer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Imports load.import-rows customers three ways: one insertCustomer per row, insertCustomers batches as the
+// /batch endpoint does, and the COPY path of CustomerBulkImporter. Each run writes fresh emails.
+// Excluded from the regular build, run with: mvn test -Pload-test -Dtest=BulkImportLoadTest [-Dload.import-rows=100000]
+class BulkImportLoadTest extends AbstractTestContainers {
+
+    private static final int ROWS = Integer.getInteger("load.import-rows", 20_000);
+    private static final int BATCH_SIZE = 1000;
+
+    private CustomerBulkImporter bulkImporter;
+    private CustomerDaoImplJdbc customerDao;
+
+    @BeforeEach
+    void setUp() {
+        bulkImporter = new CustomerBulkImporter(getJdbcTemplate());
+        customerDao = new CustomerDaoImplJdbc(
+                getJdbcTemplate(),
+                new CustomerRowMapper(),
+                new CustomerIdAllocator(getJdbcTemplate())
+        );
+    }
+
+    @Test
+    void copyAgainstInsertPaths() {
+        // warm up connections and JIT on a small import of each kind
+        rowByRow(randomCustomers(500));
+        batched(randomCustomers(500));
+        bulkImporter.importCustomers(randomCustomers(500).iterator());
+
+        time("row by row", randomCustomers(ROWS), this::rowByRow);
+        time("batched", randomCustomers(ROWS), this::batched);
+        time("copy", randomCustomers(ROWS), customers -> {
+            CustomerBulkImporter.CopyResult result = bulkImporter.importCustomers(customers.iterator());
+            assertThat(result.inserted()).isEqualTo(customers.size());
+        });
+    }
+
+    private void rowByRow(List<Customer> customers) {
+        customers.forEach(customerDao::insertCustomer);
+    }
+
+    private void batched(List<Customer> customers) {
+        for (int from = 0; from < customers.size(); from += BATCH_SIZE) {
+            List<Boolean> inserted = customerDao.insertCustomers(customers.subList(from, Math.min(customers.size(), from + BATCH_SIZE)));
+            assertThat(inserted).containsOnly(true);
+        }
+    }
+
+    private static void time(String label, List<Customer> customers, Consumer<List<Customer>> importer) {
+        long started = System.nanoTime();
+        importer.accept(customers);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("bulk import %-10s rows=%d time=%.0fms throughput=%.0f rows/s%n",
+                label, customers.size(), seconds * 1000, customers.size() / seconds);
+    }
+
+    private static List<Customer> randomCustomers(int count) {
+        String runId = UUID.randomUUID().toString();
+        List<Customer> customers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            customers.add(new Customer(
+                    FAKER.name().fullName(),
+                    "import-" + runId + "-" + i + "@test.com",
+                    FAKER.number().numberBetween(16, 99)));
+        }
+        return customers;
+    }
+}
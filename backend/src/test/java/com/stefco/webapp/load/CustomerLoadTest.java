@@ -0,0 +1,199 @@
+package com.stefco.webapp.load;
+
+import com.stefco.webapp.AbstractTestContainers;
+import com.stefco.webapp.dao.CustomerDao;
+import com.stefco.webapp.model.Customer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+// Seeds load.customers customers, then keeps load.concurrency requests in flight against api/v1/customers
+// with a mix of operations weighted by load.mix.get, load.mix.page, load.mix.create and load.mix.update.
+// Reports throughput and per-operation latency percentiles.
+// Excluded from the regular build, run with: mvn test -Pload-test [-Dtest=JpaDaoLoadTest -Dload.concurrency=2000 ...]
+// The cache is off so every request reaches the database.
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = "customer.cache.enabled=false")
+abstract class CustomerLoadTest extends AbstractTestContainers {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 1000);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("load.warmup-seconds", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.duration-seconds", 20));
+    private static final int CUSTOMERS = Integer.getInteger("load.customers", 10_000);
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    enum Operation {
+        GET(70), PAGE(10), CREATE(10), UPDATE(10);
+
+        private final int weight;
+
+        Operation(int defaultWeight) {
+            this.weight = Integer.getInteger("load.mix." + name().toLowerCase(), defaultWeight);
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private CustomerDao customerDao;
+
+    private final String runId = UUID.randomUUID().toString();
+    private final AtomicLong created = new AtomicLong();
+
+    abstract String label();
+
+    @Test
+    void mixedWorkload() throws Exception {
+        List<Long> ids = seedCustomers();
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(8);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+        try {
+            run(client, ids, WARMUP, new Stats());
+
+            Stats stats = new Stats();
+            long started = System.nanoTime();
+            run(client, ids, DURATION, stats);
+            double seconds = (System.nanoTime() - started) / 1e9;
+
+            stats.print(label(), seconds);
+            assertThat(stats.total()).isPositive();
+            assertThat(stats.failed.sum()).isZero();
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    // issues requests until the duration is over, never more than CONCURRENCY at a time
+    private void run(HttpClient client, List<Long> ids, Duration duration, Stats stats) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        long deadline = System.nanoTime() + duration.toNanos();
+        while (System.nanoTime() < deadline) {
+            inFlight.acquire();
+            Operation operation = pickOperation();
+            HttpRequest request = request(operation, ids);
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                try {
+                    stats.record(operation, error == null ? response.statusCode() : -1, System.nanoTime() - sent);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        inFlight.acquire(CONCURRENCY);
+    }
+
+    private HttpRequest request(Operation operation, List<Long> ids) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = ids.get(random.nextInt(ids.size()));
+        String uri = "http://localhost:" + port + "/api/v1/customers";
+        return switch (operation) {
+            case GET -> HttpRequest.newBuilder(URI.create(uri + "/" + id)).GET().build();
+            case PAGE -> HttpRequest.newBuilder(URI.create(uri + "?cursor=" + id + "&limit=50")).GET().build();
+            case CREATE -> HttpRequest.newBuilder(URI.create(uri))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(String.format(
+                            "{\"name\":\"Load Test\",\"email\":\"load-%s-%d@test.com\",\"age\":%d}",
+                            runId, created.incrementAndGet(), random.nextInt(16, 99))))
+                    .build();
+            case UPDATE -> HttpRequest.newBuilder(URI.create(uri + "/" + id))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(String.format("{\"age\":%d}", random.nextInt(16, 99))))
+                    .build();
+        };
+    }
+
+    private static Operation pickOperation() {
+        int totalWeight = 0;
+        for (Operation operation : Operation.values()) {
+            totalWeight += operation.weight;
+        }
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Operation operation : Operation.values()) {
+            pick -= operation.weight;
+            if (pick < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("no operation has a positive weight");
+    }
+
+    private List<Long> seedCustomers() {
+        List<Long> ids = new ArrayList<>(CUSTOMERS);
+        for (int offset = 0; offset < CUSTOMERS; offset += SEED_BATCH_SIZE) {
+            List<Customer> batch = new ArrayList<>(SEED_BATCH_SIZE);
+            for (int i = offset; i < Math.min(CUSTOMERS, offset + SEED_BATCH_SIZE); i++) {
+                batch.add(new Customer(
+                        FAKER.name().fullName(),
+                        "seed-" + runId + "-" + i + "@test.com",
+                        FAKER.number().numberBetween(16, 99)
+                ));
+            }
+            customerDao.insertCustomers(batch);
+            batch.forEach(customer -> ids.add(customer.getId()));
+        }
+        return ids;
+    }
+
+    // latency per operation in microseconds; 400 (nothing changed) and 409 count as answered
+    private static class Stats {
+        private final Map<Operation, Histogram> latencyMicros = new EnumMap<>(Operation.class);
+        private final LongAdder failed = new LongAdder();
+
+        Stats() {
+            for (Operation operation : Operation.values()) {
+                latencyMicros.put(operation, new ConcurrentHistogram(3));
+            }
+        }
+
+        void record(Operation operation, int status, long nanos) {
+            if (status < 200 || status >= 500) {
+                failed.increment();
+            } else {
+                latencyMicros.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+            }
+        }
+
+        long total() {
+            return latencyMicros.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        }
+
+        void print(String label, double seconds) {
+            System.out.printf("%s: concurrency=%d requests=%d throughput=%.0f req/s failed=%d%n",
+                    label, CONCURRENCY, total(), total() / seconds, failed.sum());
+            latencyMicros.forEach((operation, histogram) -> System.out.printf(
+                    "%s   %-6s requests=%d p50=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms%n",
+                    label, operation, histogram.getTotalCount(),
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0));
+        }
+    }
+}
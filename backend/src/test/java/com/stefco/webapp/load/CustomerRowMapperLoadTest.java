@@ -0,0 +1,90 @@
+package com.stefco.webapp.load;
+
+import com.stefco.webapp.AbstractTestContainers;
+import com.stefco.webapp.dao.helpers.CustomerRowMapper;
+import com.stefco.webapp.model.Customer;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Maps a generated 1M-row customer result set through the PostgreSQL driver with the label-based
+// CustomerRowMapper and with the index-based mapper from CustomerRowMapper.forQuery(). The rows are
+// streamed with a fetch size like forEachCustomer does, and the two mappers alternate over several
+// rounds so both see the same connection, JIT and server cache state. The reported times include
+// fetching, so the difference between them is what the mapping costs.
+// Excluded from the regular build, run with: mvn test -Pload-test -Dtest=CustomerRowMapperLoadTest [-Dload.rows=1000000]
+class CustomerRowMapperLoadTest extends AbstractTestContainers {
+
+    private static final int ROWS = Integer.getInteger("load.rows", 1_000_000);
+    private static final int ROUNDS = Integer.getInteger("load.rounds", 7);
+    private static final int FETCH_SIZE = 1_000;
+
+    private static final String SQL = """
+            SELECT g AS id, 'name ' || g AS name, 'customer' || g || '@test.com' AS email,
+                   18 + g % 60 AS age, 0::bigint AS version
+            FROM generate_series(1, ?) g
+            """;
+
+    private final JdbcTemplate jdbcTemplate = getJdbcTemplate();
+    private final CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+
+    @Test
+    void labelAgainstIndexMapping() {
+        // warm up the JIT and the server with both mappers
+        map(() -> customerRowMapper);
+        map(customerRowMapper::forQuery);
+
+        long[] byLabel = new long[ROUNDS];
+        long[] byIndex = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            byLabel[round] = map(() -> customerRowMapper);
+            byIndex[round] = map(customerRowMapper::forQuery);
+        }
+
+        print("by label", byLabel);
+        print("by index", byIndex);
+    }
+
+    // returns the nanoseconds it took to map every row
+    private long map(Supplier<RowMapper<Customer>> mappers) {
+        RowMapper<Customer> rowMapper = mappers.get();
+        long[] ages = new long[1];
+        long started = System.nanoTime();
+        // a fetch size only streams inside a transaction, so run with auto-commit off
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement(SQL)) {
+                ps.setFetchSize(FETCH_SIZE);
+                ps.setInt(1, ROWS);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        ages[0] += rowMapper.mapRow(rs, rs.getRow()).getAge();
+                    }
+                }
+            } finally {
+                con.rollback();
+                con.setAutoCommit(true);
+            }
+            return null;
+        });
+        long elapsed = System.nanoTime() - started;
+        assertThat(ages[0]).isPositive();
+        return elapsed;
+    }
+
+    private static void print(String label, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("map %-8s rows=%d rounds=%d median=%.1fms min=%.1fms max=%.1fms%n",
+                label, ROWS, sorted.length,
+                sorted[sorted.length / 2] / 1e6, sorted[0] / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+}
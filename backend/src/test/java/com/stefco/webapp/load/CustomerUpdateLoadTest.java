@@ -0,0 +1,89 @@
+package com.stefco.webapp.load;
+
+import com.stefco.webapp.AbstractTestContainers;
+import com.stefco.webapp.dao.CustomerDaoImplJdbc;
+import com.stefco.webapp.dao.helpers.CustomerIdAllocator;
+import com.stefco.webapp.dao.helpers.CustomerRowMapper;
+import com.stefco.webapp.dto.CustomerDto;
+import com.stefco.webapp.model.Customer;
+import com.stefco.webapp.service.CustomerService;
+import com.stefco.webapp.service.exception.RequestValidationException;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Times CustomerService.updateCustomer through the JDBC DAO, one caller at a time. The change detection runs
+// in the update statement, so both outcomes are a database round trip: a change commits a new version,
+// an update that changes nothing only reads the row and ends in the 400 exception.
+// Excluded from the regular build, run with: mvn test -Pload-test -Dtest=CustomerUpdateLoadTest [-Dload.updates=20000]
+class CustomerUpdateLoadTest extends AbstractTestContainers {
+
+    private static final int UPDATES = Integer.getInteger("load.updates", 5_000);
+    private static final int CUSTOMERS = 100;
+
+    private CustomerService underTest;
+    private CustomerDaoImplJdbc customerDao;
+
+    @BeforeEach
+    void setUp() {
+        customerDao = new CustomerDaoImplJdbc(
+                getJdbcTemplate(),
+                new CustomerRowMapper(),
+                new CustomerIdAllocator(getJdbcTemplate())
+        );
+        underTest = new CustomerService(customerDao);
+    }
+
+    @Test
+    void changedAgainstUnchangedUpdates() {
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers.add(new Customer(FAKER.name().fullName(), "update-" + UUID.randomUUID() + "@test.com", 30));
+        }
+        customerDao.insertCustomers(customers);
+
+        // warm up connections and JIT with both outcomes
+        run(customers, UPDATES / 10, true);
+        run(customers, UPDATES / 10, false);
+
+        print("changed", run(customers, UPDATES, true));
+        print("unchanged", run(customers, UPDATES, false));
+    }
+
+    // changed updates flip every customer between two ages, unchanged ones send the age it already has
+    private Histogram run(List<Customer> customers, int updates, boolean changed) {
+        Histogram latencyMicros = new Histogram(3);
+        for (int i = 0; i < updates; i++) {
+            Customer customer = customers.get(i % customers.size());
+            int age = changed ? (customer.getAge() == 30 ? 31 : 30) : customer.getAge();
+            CustomerDto update = new CustomerDto(null, null, age);
+            long started = System.nanoTime();
+            if (changed) {
+                assertThat(underTest.updateCustomer(customer.getId(), update, null).getAge()).isEqualTo(age);
+                customer.setAge(age);
+            } else {
+                assertThatThrownBy(() -> underTest.updateCustomer(customer.getId(), update, null))
+                        .isInstanceOf(RequestValidationException.class);
+            }
+            latencyMicros.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+        }
+        return latencyMicros;
+    }
+
+    private static void print(String label, Histogram histogram) {
+        System.out.printf("update %-9s requests=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms%n",
+                label, histogram.getTotalCount(),
+                histogram.getMean() / 1000.0,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+}
@@ -0,0 +1,13 @@
+package com.stefco.webapp.load;
+
+import org.springframework.test.context.TestPropertySource;
+
+// compare with JdbcDaoLoadTest on a create-heavy mix, e.g. -Dload.mix.create=80
+@TestPropertySource(properties = {"customer.dao.implementation=jdbc", "customer.dao.group-commit.enabled=true"})
+class GroupCommitLoadTest extends CustomerLoadTest {
+
+    @Override
+    String label() {
+        return "jdbc dao, group commit";
+    }
+}
@@ -0,0 +1,12 @@
+package com.stefco.webapp.load;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "customer.dao.implementation=jdbc")
+class JdbcDaoLoadTest extends CustomerLoadTest {
+
+    @Override
+    String label() {
+        return "jdbc dao";
+    }
+}
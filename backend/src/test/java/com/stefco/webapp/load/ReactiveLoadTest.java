@@ -0,0 +1,22 @@
+package com.stefco.webapp.load;
+
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+// the same mix served by WebFlux on Netty over R2DBC
+@ActiveProfiles("reactive")
+class ReactiveLoadTest extends CustomerLoadTest {
+
+    @DynamicPropertySource
+    private static void registerR2dbcProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.r2dbc.url", () -> postgreSQLContainer.getJdbcUrl().replace("jdbc:", "r2dbc:"));
+        registry.add("spring.r2dbc.username", postgreSQLContainer::getUsername);
+        registry.add("spring.r2dbc.password", postgreSQLContainer::getPassword);
+    }
+
+    @Override
+    String label() {
+        return "reactive";
+    }
+}
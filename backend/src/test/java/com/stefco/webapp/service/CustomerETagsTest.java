@@ -0,0 +1,25 @@
+package com.stefco.webapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerETagsTest {
+
+    @Test
+    void expectedVersionReadsQuotedVersion() {
+        assertThat(CustomerETags.expectedVersion("\"3\"")).isEqualTo(3L);
+    }
+
+    @Test
+    void expectedVersionIsNullWithoutHeaderOrForAnyVersion() {
+        assertThat(CustomerETags.expectedVersion(null)).isNull();
+        assertThat(CustomerETags.expectedVersion("*")).isNull();
+    }
+
+    @Test
+    void expectedVersionNeverMatchesWeakOrForeignETags() {
+        assertThat(CustomerETags.expectedVersion("W/\"3\"")).isEqualTo(CustomerETags.NO_VERSION);
+        assertThat(CustomerETags.expectedVersion("\"a1b2\"")).isEqualTo(CustomerETags.NO_VERSION);
+    }
+}
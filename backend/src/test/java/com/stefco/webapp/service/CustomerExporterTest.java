@@ -0,0 +1,65 @@
+package com.stefco.webapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stefco.webapp.dao.CustomerDao;
+import com.stefco.webapp.model.Customer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerExporterTest {
+
+    @Mock
+    private CustomerDao customerDao;
+    private CustomerExporter underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerExporter(customerDao, new ObjectMapper());
+        doAnswer(invocation -> {
+            Consumer<Customer> action = invocation.getArgument(0);
+            action.accept(new Customer(1L, "Alex", "alex@gmail.com", 32));
+            action.accept(new Customer(2L, "Smith, \"Jo\"", "jo@gmail.com", 45));
+            return null;
+        }).when(customerDao).forEachCustomer(any());
+    }
+
+    @Test
+    void exportWritesOneJsonObjectPerLine() throws IOException {
+        //Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        //When
+        underTest.export(CustomerDataFormat.NDJSON, out);
+        //Then
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                {"id":1,"name":"Alex","email":"alex@gmail.com","age":32}
+                {"id":2,"name":"Smith, \\"Jo\\"","email":"jo@gmail.com","age":45}
+                """);
+    }
+
+    @Test
+    void exportWritesCsvWithHeaderAndEscapedValues() throws IOException {
+        //Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        //When
+        underTest.export(CustomerDataFormat.CSV, out);
+        //Then
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                id,name,email,age
+                1,Alex,alex@gmail.com,32
+                2,"Smith, ""Jo\"\"",jo@gmail.com,45
+                """);
+    }
+}
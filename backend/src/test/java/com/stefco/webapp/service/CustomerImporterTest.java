@@ -0,0 +1,146 @@
+package com.stefco.webapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import com.stefco.webapp.dao.CustomerBulkImporter;
+import com.stefco.webapp.dto.CustomerImportReport;
+import com.stefco.webapp.model.Customer;
+import com.stefco.webapp.service.exception.RequestValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerImporterTest {
+
+    @Mock
+    private CustomerBulkImporter customerBulkImporter;
+    private CustomerImporter underTest;
+    private final List<Customer> imported = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerImporter(customerBulkImporter, new ObjectMapper().registerModule(new ParameterNamesModule()));
+    }
+
+    private void givenBulkImporterInserts(long inserted) {
+        when(customerBulkImporter.importCustomers(any())).thenAnswer(invocation -> {
+            Iterator<Customer> customers = invocation.getArgument(0);
+            customers.forEachRemaining(imported::add);
+            return new CustomerBulkImporter.CopyResult(imported.size(), inserted);
+        });
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importsNdjsonAndCountsRejectedLines() throws IOException {
+        //Given
+        givenBulkImporterInserts(1);
+        String ndjson = """
+                {"name":"Alex","email":"alex@gmail.com","age":32}
+                not json
+
+                {"name":"Jamila","email":"jamila@gmail.com"}
+                {"name":"Ali","email":"ali@gmail.com","age":45}
+                """;
+        //When
+        CustomerImportReport actual = underTest.importCustomers(CustomerDataFormat.NDJSON, input(ndjson));
+        //Then
+        assertThat(actual).isEqualTo(new CustomerImportReport(1, 1, 2));
+        assertThat(imported).containsExactly(
+                new Customer("Alex", "alex@gmail.com", 32),
+                new Customer("Ali", "ali@gmail.com", 45)
+        );
+    }
+
+    @Test
+    void importsCsvWithQuotedFieldsAndExportHeader() throws IOException {
+        //Given
+        givenBulkImporterInserts(2);
+        String csv = """
+                id,name,email,age
+                1,Alex,alex@gmail.com,32
+                2,"Smith, ""Jo\"\"",jo@gmail.com,45
+                3,Ali,ali@gmail.com,old
+                4,"Multi
+                Line",multi@gmail.com,50
+                """;
+        //When
+        CustomerImportReport actual = underTest.importCustomers(CustomerDataFormat.CSV, input(csv));
+        //Then
+        assertThat(actual).isEqualTo(new CustomerImportReport(2, 1, 1));
+        assertThat(imported).containsExactly(
+                new Customer("Alex", "alex@gmail.com", 32),
+                new Customer("Smith, \"Jo\"", "jo@gmail.com", 45),
+                new Customer("Multi\nLine", "multi@gmail.com", 50)
+        );
+    }
+
+    @Test
+    void willThrowWhenCsvHeaderIsMissingColumns() {
+        //Given
+        when(customerBulkImporter.importCustomers(any())).thenAnswer(invocation -> {
+            Iterator<Customer> customers = invocation.getArgument(0);
+            return customers.hasNext();
+        });
+        //When
+        //Then
+        assertThatThrownBy(() -> underTest.importCustomers(CustomerDataFormat.CSV, input("name,age\nAlex,32\n")))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("csv header must contain name, email and age columns");
+    }
+
+    @Test
+    void csvQuoteInsideAFieldIsAnOrdinaryCharacter() throws IOException {
+        //Given
+        givenBulkImporterInserts(3);
+        String csv = """
+                name,email,age
+                O"Brien,obrien@gmail.com,40
+                Alex,alex@gmail.com,32
+                "Ali" x,ali@gmail.com,45
+                Jamila,jamila@gmail.com,21
+                """;
+        //When
+        CustomerImportReport actual = underTest.importCustomers(CustomerDataFormat.CSV, input(csv));
+        //Then
+        assertThat(actual).isEqualTo(new CustomerImportReport(3, 0, 1));
+        assertThat(imported).containsExactly(
+                new Customer("O\"Brien", "obrien@gmail.com", 40),
+                new Customer("Alex", "alex@gmail.com", 32),
+                new Customer("Jamila", "jamila@gmail.com", 21)
+        );
+    }
+
+    @Test
+    void csvRecordLongerThanTheLimitIsRejectedAlone() throws IOException {
+        //Given
+        givenBulkImporterInserts(1);
+        String csv = "name,email,age\n"
+                + "x".repeat(CustomerImporter.MAX_CSV_RECORD_LENGTH) + ",long@gmail.com,30\n"
+                + "Alex,alex@gmail.com,32\n";
+        //When
+        CustomerImportReport actual = underTest.importCustomers(CustomerDataFormat.CSV, input(csv));
+        //Then
+        assertThat(actual).isEqualTo(new CustomerImportReport(1, 0, 1));
+        assertThat(imported).containsExactly(new Customer("Alex", "alex@gmail.com", 32));
+    }
+}
@@ -0,0 +1,45 @@
+package com.stefco.webapp.service;
+
+import com.stefco.webapp.dao.CustomerDao;
+import com.stefco.webapp.model.Customer;
+import com.stefco.webapp.service.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomerServiceMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CustomerDao customerDao = mock(CustomerDao.class);
+    private CustomerService underTest;
+
+    @BeforeEach
+    void setUp() {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new CustomerService(customerDao));
+        proxyFactory.addAspect(new CustomerServiceMetrics(meterRegistry));
+        underTest = proxyFactory.getProxy();
+    }
+
+    @Test
+    void operationsAreTimedWithOutcome() {
+        //Given
+        when(customerDao.selectCustomerById(1L)).thenReturn(Optional.of(new Customer(1L, "Alex", "alex@gmail.com", 32)));
+        when(customerDao.selectCustomerById(2L)).thenReturn(Optional.empty());
+        //When
+        underTest.getCustomer(1L);
+        assertThatThrownBy(() -> underTest.getCustomer(2L)).isInstanceOf(ResourceNotFoundException.class);
+        //Then
+        assertThat(meterRegistry.get("customer.service").tag("operation", "getCustomer").tag("outcome", "success").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("customer.service").tag("operation", "getCustomer").tag("outcome", "not-found").timer().count())
+                .isEqualTo(1);
+    }
+}
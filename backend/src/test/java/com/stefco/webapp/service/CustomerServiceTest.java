@@ -1,19 +1,36 @@
 package com.stefco.webapp.service;
 
 import com.stefco.webapp.dao.CustomerDao;
+import com.stefco.webapp.dao.CustomerMatch;
+import com.stefco.webapp.dao.CustomerQuery;
+import com.stefco.webapp.dao.CustomerSort;
+import com.stefco.webapp.dao.CustomerUpdateResult;
+import com.stefco.webapp.dao.CustomerVersion;
+import com.stefco.webapp.dto.CustomerBatchResult;
 import com.stefco.webapp.dto.CustomerDto;
+import com.stefco.webapp.dto.CustomerLookup;
+import com.stefco.webapp.dto.CustomerPage;
+import com.stefco.webapp.dto.CustomerQueryPage;
+import com.stefco.webapp.dto.CustomerSearchPage;
 import com.stefco.webapp.model.Customer;
 import com.stefco.webapp.service.exception.CustomerNotFoundException;
 import com.stefco.webapp.service.exception.DuplicateResourceException;
+import com.stefco.webapp.service.exception.PreconditionFailedException;
 import com.stefco.webapp.service.exception.RequestValidationException;
 import com.stefco.webapp.service.exception.ResourceNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
@@ -23,6 +40,8 @@ class CustomerServiceTest {
 
     @Mock
     private CustomerDao customerDao;
+    @Captor
+    private ArgumentCaptor<List<Customer>> customersArgumentCaptor;
     private CustomerService underTest;
 
     @BeforeEach
@@ -31,11 +50,68 @@ class CustomerServiceTest {
     }
 
     @Test
-    void getAllCustomers() {
+    void getCustomersReturnsNextCursorWhenMoreRowsExist() {
+        //Given
+        Customer first = new Customer(1L, "Alex", "alex@gmail.com", 32);
+        Customer second = new Customer(2L, "Jamila", "jamila@gmail.com", 21);
+        Customer third = new Customer(3L, "Ali", "ali@gmail.com", 45);
+        when(customerDao.selectCustomers(null, 3)).thenReturn(List.of(first, second, third));
+        //When
+        CustomerPage actual = underTest.getCustomers(null, 2);
+        //Then
+        assertThat(actual.getCustomers()).containsExactly(first, second);
+        assertThat(actual.getNextCursor()).isEqualTo(2L);
+    }
+
+    @Test
+    void getCustomersReturnsNoCursorOnLastPage() {
+        //Given
+        long cursor = 2;
+        Customer third = new Customer(3L, "Ali", "ali@gmail.com", 45);
+        when(customerDao.selectCustomers(cursor, CustomerService.DEFAULT_PAGE_SIZE + 1)).thenReturn(List.of(third));
+        //When
+        CustomerPage actual = underTest.getCustomers(cursor, null);
+        //Then
+        assertThat(actual.getCustomers()).containsExactly(third);
+        assertThat(actual.getNextCursor()).isNull();
+    }
+
+    @Test
+    void getCustomersETagMatchesETagOfLoadedPage() {
+        //Given
+        Customer first = new Customer(1L, "Alex", "alex@gmail.com", 32, 0L);
+        Customer second = new Customer(2L, "Jamila", "jamila@gmail.com", 21, 4L);
+        Customer third = new Customer(3L, "Ali", "ali@gmail.com", 45, 1L);
+        when(customerDao.selectCustomers(null, 3)).thenReturn(List.of(first, second, third));
+        when(customerDao.selectCustomerVersions(null, 3)).thenReturn(List.of(
+                new CustomerVersion(1L, 0L), new CustomerVersion(2L, 4L), new CustomerVersion(3L, 1L)));
         //When
-        underTest.getAllCustomers();
+        String actual = underTest.getCustomersETag(null, 2);
         //Then
-        verify(customerDao).selectAllCustomers();
+        assertThat(actual).isEqualTo(CustomerETags.of(underTest.getCustomers(null, 2)));
+    }
+
+    @Test
+    void getCustomersETagChangesWhenACustomerOnThePageChanges() {
+        //Given
+        List<CustomerVersion> unchanged = List.of(new CustomerVersion(1L, 0L), new CustomerVersion(2L, 0L));
+        List<CustomerVersion> changed = List.of(new CustomerVersion(1L, 0L), new CustomerVersion(2L, 1L));
+        when(customerDao.selectCustomerVersions(null, 3)).thenReturn(unchanged).thenReturn(changed);
+        //When
+        String before = underTest.getCustomersETag(null, 2);
+        String after = underTest.getCustomersETag(null, 2);
+        //Then
+        assertThat(after).isNotEqualTo(before);
+    }
+
+    @Test
+    void willThrowWhenPageLimitOutOfRange() {
+        //When
+        assertThatThrownBy(() -> underTest.getCustomers(null, CustomerService.MAX_PAGE_SIZE + 1))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage(String.format("limit must be between 1 and %s", CustomerService.MAX_PAGE_SIZE));
+        //Then
+        verifyNoInteractions(customerDao);
     }
 
     @Test
@@ -62,18 +138,54 @@ class CustomerServiceTest {
                 .hasMessage(String.format("customer with id [%s] not found",id));
     }
 
+    @Test
+    void getCustomersByIdsKeepsRequestOrderAndReportsMissingIds() {
+        //Given
+        Customer first = new Customer(1L, "Alex", "alex@gmail.com", 32);
+        Customer third = new Customer(3L, "Ali", "ali@gmail.com", 45);
+        when(customerDao.selectCustomersByIds(Set.of(3L, 2L, 1L))).thenReturn(List.of(first, third));
+        //When
+        CustomerLookup actual = underTest.getCustomersByIds(List.of(3L, 2L, 1L, 3L));
+        //Then
+        assertThat(actual.getCustomers()).containsExactly(third, first);
+        assertThat(actual.getMissingIds()).containsExactly(2L);
+        verify(customerDao, times(1)).selectCustomersByIds(any());
+    }
+
+    @Test
+    void willThrowWhenGetCustomersByIdsBatchIsEmpty() {
+        //When
+        assertThatThrownBy(() -> underTest.getCustomersByIds(List.of()))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage(String.format("batch must contain between 1 and %s ids", CustomerService.MAX_BATCH_SIZE));
+        //Then
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenGetCustomerVersionFindsNoCustomer() {
+        //Given
+        long id = 10;
+        when(customerDao.selectCustomerVersion(id)).thenReturn(Optional.empty());
+        //When
+        //Then
+        assertThatThrownBy(() -> underTest.getCustomerVersion(id))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage(String.format("customer with id [%s] not found",id));
+    }
+
     @Test
     void addCustomer() {
         //Given
         String email = "alex@gmail.com";
-        when(customerDao.existsPersonWithEmail(email)).thenReturn(false);
+        when(customerDao.insertCustomerIfEmailAbsent(any())).thenReturn(Optional.of(1L));
         CustomerDto customerDto = new CustomerDto("Alex", email, 33);
         //When
         underTest.addCustomer(customerDto);
         //Then
         ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
 
-        verify(customerDao).insertCustomer(customerArgumentCaptor.capture());
+        verify(customerDao).insertCustomerIfEmailAbsent(customerArgumentCaptor.capture());
 
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
@@ -86,32 +198,64 @@ class CustomerServiceTest {
     void willThrowWhenEmailExistsWhileAddCustomer() {
         //Given
         String email = "alex@gmail.com";
-        when(customerDao.existsPersonWithEmail(email)).thenReturn(true);
+        when(customerDao.insertCustomerIfEmailAbsent(any())).thenReturn(Optional.empty());
         CustomerDto customerDto = new CustomerDto("Alex", email, 33);
         //When
         assertThatThrownBy(() -> underTest.addCustomer(customerDto))
                 .isInstanceOf(DuplicateResourceException.class)
                 .hasMessage("Email already taken");
         //Then
+        verify(customerDao, never()).existsPersonWithEmail(any());
         verify(customerDao, never()).insertCustomer(any());
     }
 
+    @Test
+    void addCustomersReportsResultPerRow() {
+        //Given
+        CustomerDto alex = new CustomerDto("Alex", "alex@gmail.com", 33);
+        CustomerDto invalid = new CustomerDto("Jamila", null, 21);
+        CustomerDto taken = new CustomerDto("Ali", "ali@gmail.com", 45);
+        when(customerDao.insertCustomers(anyList())).thenReturn(List.of(true, false));
+        //When
+        List<CustomerBatchResult> actual = underTest.addCustomers(List.of(alex, invalid, taken));
+        //Then
+        assertThat(actual).containsExactly(
+                new CustomerBatchResult(0, "alex@gmail.com", CustomerBatchResult.Status.CREATED),
+                new CustomerBatchResult(1, null, CustomerBatchResult.Status.INVALID),
+                new CustomerBatchResult(2, "ali@gmail.com", CustomerBatchResult.Status.DUPLICATE_EMAIL)
+        );
+        verify(customerDao).insertCustomers(customersArgumentCaptor.capture());
+        assertThat(customersArgumentCaptor.getValue()).extracting(Customer::getEmail)
+                .containsExactly("alex@gmail.com", "ali@gmail.com");
+    }
+
+    @Test
+    void willThrowWhenBatchIsEmpty() {
+        //When
+        assertThatThrownBy(() -> underTest.addCustomers(List.of()))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage(String.format("batch must contain between 1 and %s customers", CustomerService.MAX_BATCH_SIZE));
+        //Then
+        verify(customerDao, never()).insertCustomers(any());
+    }
+
      @Test
     void canDeleteCustomer() {
         //Given
         long id = 10;
-        when(customerDao.existsCustomerWithId(id)).thenReturn(true);
+        when(customerDao.deleteCustomerWithId(id)).thenReturn(Optional.of(new Customer(id, "Alex", "Alex@gmail.com", 32)));
         //When
         underTest.deleteCustomer(id);
         //Then
         verify(customerDao).deleteCustomerWithId(id);
+        verify(customerDao, never()).existsCustomerWithId(any());
     }
 
     @Test
     void throwExceptionDeleteCustomer() {
         //Given
         long id = 10;
-        when(customerDao.existsCustomerWithId(id)).thenReturn(false);
+        when(customerDao.deleteCustomerWithId(id)).thenReturn(Optional.empty());
         //When
         assertThatThrownBy(() -> underTest.deleteCustomer(id))
                 .isInstanceOf(CustomerNotFoundException.class)
@@ -120,126 +264,236 @@ class CustomerServiceTest {
         verify(customerDao, never()).insertCustomer(any());
     }
 
+    @Test
+    void deleteCustomersReturnsRemovedIds() {
+        //Given
+        List<Long> ids = List.of(1L, 2L, 3L);
+        when(customerDao.deleteCustomersWithIds(ids)).thenReturn(List.of(
+                new Customer(1L, "Alex", "alex@gmail.com", 32),
+                new Customer(3L, "Ali", "ali@gmail.com", 45)
+        ));
+        //When
+        List<Long> actual = underTest.deleteCustomers(ids);
+        //Then
+        assertThat(actual).containsExactly(1L, 3L);
+    }
+
     @Test
     void canUpdateAllCustomerProperties() {
         //Given
         long id = 10;
-        Customer customer = new Customer(id, "Alex", "Alex@gmail.com", 32);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
         String newEmail = "alesandro@gmail.com";
         CustomerDto customerDto = new CustomerDto("Alesandro", newEmail, 55);
-        when(customerDao.existsPersonWithEmail(newEmail)).thenReturn(false);
+        Customer updated = new Customer(id, "Alesandro", newEmail, 55);
+        when(customerDao.updateCustomerFields(id, "Alesandro", newEmail, 55, null))
+                .thenReturn(CustomerUpdateResult.updated(updated));
         //When
-        underTest.updateCustomer(id,customerDto);
+        underTest.updateCustomer(id, customerDto, null);
         //Then
-        ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
-
-        verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
-
-        Customer capturedCustomer = customerArgumentCaptor.getValue();
-
-        assertThat(capturedCustomer.getAge()).isEqualTo(customerDto.getAge());
-        assertThat(capturedCustomer.getEmail()).isEqualTo(customerDto.getEmail());
-        assertThat(capturedCustomer.getName()).isEqualTo(customerDto.getName());
+        verify(customerDao).updateCustomerFields(id, "Alesandro", newEmail, 55, null);
+        verify(customerDao, never()).selectCustomerById(any());
+        verify(customerDao, never()).existsPersonWithEmail(any());
     }
 
     @Test
     void canUpdateOnlyCustomerNameProperty() {
         //Given
         long id = 10;
-        Customer customer = new Customer(id, "Alex", "Alex@gmail.com", 32);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
         CustomerDto customerDto = new CustomerDto("Alesandro", null, null);
+        Customer updated = new Customer(id, "Alesandro", "Alex@gmail.com", 32);
+        when(customerDao.updateCustomerFields(id, "Alesandro", null, null, null))
+                .thenReturn(CustomerUpdateResult.updated(updated));
         //When
-        underTest.updateCustomer(id,customerDto);
+        underTest.updateCustomer(id, customerDto, null);
         //Then
-        ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
-
-        verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
-
-        Customer capturedCustomer = customerArgumentCaptor.getValue();
+        verify(customerDao).updateCustomerFields(id, "Alesandro", null, null, null);
+    }
 
-        assertThat(capturedCustomer.getAge()).isEqualTo(customer.getAge());
-        assertThat(capturedCustomer.getEmail()).isEqualTo(customer.getEmail());
-        assertThat(capturedCustomer.getName()).isEqualTo(customerDto.getName());
+    @Test
+    void willThrowWhenUpdatingCustomerThatDoesNotExist() {
+        //Given
+        long id = 10;
+        CustomerDto customerDto = new CustomerDto(null, null, 16);
+        when(customerDao.updateCustomerFields(id, null, null, 16, null)).thenReturn(CustomerUpdateResult.notFound());
+        //When
+        //Then
+        assertThatThrownBy(() -> underTest.updateCustomer(id, customerDto, null))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage(String.format("customer with id [%s] not found",id));
     }
 
     @Test
-    void canUpdateOnlyEmailCustomerProperties() {
+    void willThrowWhenTryingUpdateOnlyEmailCustomerPropertiesAlreadyTaken() {
         //Given
         long id = 10;
-        Customer customer = new Customer(id, "Alex", "Alex@gmail.com", 32);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
         String newEmail = "alesandro@gmail.com";
         CustomerDto customerDto = new CustomerDto(null, newEmail, null);
-        when(customerDao.existsPersonWithEmail(newEmail)).thenReturn(false);
+        when(customerDao.updateCustomerFields(id, null, newEmail, null, null))
+                .thenThrow(new DuplicateKeyException("customer_email_unique"));
+
         //When
-        underTest.updateCustomer(id,customerDto);
         //Then
-        ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
-
-        verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
+        assertThatThrownBy(() -> underTest.updateCustomer(id, customerDto, null))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
+    }
 
-        Customer capturedCustomer = customerArgumentCaptor.getValue();
+    @Test
+    void updateLetsOtherIntegrityViolationsThrough() {
+        //Given
+        long id = 10;
+        CustomerDto customerDto = new CustomerDto(null, null, -1);
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("customer_age_check");
+        when(customerDao.updateCustomerFields(id, null, null, -1, null)).thenThrow(violation);
 
-        assertThat(capturedCustomer.getAge()).isEqualTo(customer.getAge());
-        assertThat(capturedCustomer.getEmail()).isEqualTo(customerDto.getEmail());
-        assertThat(capturedCustomer.getName()).isEqualTo(customer.getName());
+        //When
+        //Then
+        assertThatThrownBy(() -> underTest.updateCustomer(id, customerDto, null))
+                .isSameAs(violation);
     }
 
     @Test
-    void canUpdateOnlyCustomerAgeProperty() {
+    void willThrowWhenUpdateHasNoChanges() {
         //Given
         long id = 10;
-        Customer customer = new Customer(id, "Alex", "Alex@gmail.com", 32);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-        CustomerDto customerDto = new CustomerDto(null, null, 16);
+        CustomerDto customerDto = new CustomerDto("Alex", "Alex@gmail.com", 32);
+        when(customerDao.updateCustomerFields(id, "Alex", "Alex@gmail.com", 32, null))
+                .thenReturn(CustomerUpdateResult.unchanged());
         //When
-        underTest.updateCustomer(id,customerDto);
         //Then
-        ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
-
-        verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
+        assertThatThrownBy(() -> underTest.updateCustomer(id, customerDto, null))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("no data changed found");
+    }
 
-        Customer capturedCustomer = customerArgumentCaptor.getValue();
+    @Test
+    void willThrowWhenUpdateExpectsAnOlderVersion() {
+        //Given
+        long id = 10;
+        CustomerDto customerDto = new CustomerDto(null, null, 33);
+        when(customerDao.updateCustomerFields(id, null, null, 33, 1L))
+                .thenReturn(CustomerUpdateResult.versionConflict());
+        //When
+        //Then
+        assertThatThrownBy(() -> underTest.updateCustomer(id, customerDto, 1L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage(String.format("customer with id [%s] has changed",id));
+    }
 
-        assertThat(capturedCustomer.getAge()).isEqualTo(customerDto.getAge());
-        assertThat(capturedCustomer.getEmail()).isEqualTo(customer.getEmail());
-        assertThat(capturedCustomer.getName()).isEqualTo(customer.getName());
+    @Test
+    void willThrowWhenConditionalUpdateLosesToAConcurrentUpdate() {
+        //Given
+        long id = 10;
+        CustomerDto customerDto = new CustomerDto(null, null, 33);
+        when(customerDao.updateCustomerFields(id, null, null, 33, 1L))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Customer.class, id));
+        //When
+        //Then
+        assertThatThrownBy(() -> underTest.updateCustomer(id, customerDto, 1L))
+                .isInstanceOf(PreconditionFailedException.class);
+        verify(customerDao, times(1)).updateCustomerFields(id, null, null, 33, 1L);
     }
 
     @Test
-    void willThrowWhenTryingUpdateOnlyEmailCustomerPropertiesAlreadyTaken() {
+    void unconditionalUpdateIsRetriedAfterLosingToAConcurrentUpdate() {
         //Given
         long id = 10;
-        Customer customer = new Customer(id, "Alex", "Alex@gmail.com", 32);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-        String newEmail = "alesandro@gmail.com";
-        CustomerDto customerDto = new CustomerDto(null, newEmail, null);
-        when(customerDao.existsPersonWithEmail(newEmail)).thenReturn(true);
+        CustomerDto customerDto = new CustomerDto(null, null, 33);
+        Customer updated = new Customer(id, "Alex", "alex@gmail.com", 33, 2L);
+        when(customerDao.updateCustomerFields(id, null, null, 33, null))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Customer.class, id))
+                .thenReturn(CustomerUpdateResult.updated(updated));
+        //When
+        Customer actual = underTest.updateCustomer(id, customerDto, null);
+        //Then
+        assertThat(actual).isEqualTo(updated);
+        verify(customerDao, times(2)).updateCustomerFields(id, null, null, 33, null);
+    }
 
+    @Test
+    void searchCustomersReturnsCursorOfLastMatchWhenMoreMatchesExist() {
+        //Given
+        Customer first = new Customer(1L, "Alex", "alex@gmail.com", 32);
+        Customer second = new Customer(2L, "Alexa", "alexa@gmail.com", 21);
+        Customer third = new Customer(3L, "Alexis", "alexis@gmail.com", 45);
+        when(customerDao.searchCustomers("alex", null, null, 3)).thenReturn(List.of(
+                new CustomerMatch(first, 1f), new CustomerMatch(second, 0.8f), new CustomerMatch(third, 0.8f)));
         //When
-        assertThatThrownBy(() -> underTest.updateCustomer(id, customerDto))
-                .isInstanceOf(DuplicateResourceException.class)
-                .hasMessage("email already taken");
+        CustomerSearchPage actual = underTest.searchCustomers(" alex ", null, 2);
+        //Then
+        assertThat(actual.getCustomers()).containsExactly(first, second);
+        assertThat(actual.getNextCursor()).isEqualTo("0.8:2");
+    }
 
+    @Test
+    void searchCustomersContinuesAfterCursor() {
+        //Given
+        Customer third = new Customer(3L, "Alexis", "alexis@gmail.com", 45);
+        when(customerDao.searchCustomers("alex", 0.8f, 2L, CustomerService.DEFAULT_PAGE_SIZE + 1))
+                .thenReturn(List.of(new CustomerMatch(third, 0.8f)));
+        //When
+        CustomerSearchPage actual = underTest.searchCustomers("alex", "0.8:2", null);
         //Then
-        verify(customerDao, never()).updateCustomer(any());
+        assertThat(actual.getCustomers()).containsExactly(third);
+        assertThat(actual.getNextCursor()).isNull();
+    }
 
+    @Test
+    void willThrowWhenSearchTermIsTooShort() {
+        //When
+        assertThatThrownBy(() -> underTest.searchCustomers(" al ", null, null))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage(String.format("search term must be between %s and %s characters",
+                        CustomerService.MIN_SEARCH_TERM_LENGTH, CustomerService.MAX_SEARCH_TERM_LENGTH));
+        //Then
+        verifyNoInteractions(customerDao);
     }
 
     @Test
-    void willThrowWhenUpdateHasNoChanges() {
+    void willThrowWhenSearchCursorIsMalformed() {
+        //When
+        assertThatThrownBy(() -> underTest.searchCustomers("alex", "12", null))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("invalid cursor [12]");
+        //Then
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void queryCustomersCursorResumesAfterLastCustomer() {
         //Given
-        long id = 10;
-        Customer customer = new Customer(id, "Alex", "Alex@gmail.com", 32);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-        CustomerDto customerDto = new CustomerDto(customer.getName(), customer.getEmail(), customer.getAge());
+        Customer first = new Customer(1L, "Alex: Senior", "alex@gmail.com", 32);
+        Customer second = new Customer(2L, "Ali", "ali@gmail.com", 45);
+        CustomerQuery query = new CustomerQuery(30, null, null, "Al", CustomerSort.NAME, false);
+        when(customerDao.selectCustomers(query, null, 2)).thenReturn(List.of(first, second));
+        when(customerDao.selectCustomers(query, new Customer(1L, "Alex: Senior", null, null), 2))
+                .thenReturn(List.of(second));
         //When
-        assertThatThrownBy(() -> underTest.updateCustomer(id, customerDto))
+        CustomerQueryPage firstPage = underTest.queryCustomers(30, null, " ", "Al", "name", null, null, 1);
+        CustomerQueryPage actual = underTest.queryCustomers(30, null, null, "Al", "name", "asc", firstPage.getNextCursor(), 1);
+        //Then
+        assertThat(firstPage.getCustomers()).containsExactly(first);
+        assertThat(actual.getCustomers()).containsExactly(second);
+        assertThat(actual.getNextCursor()).isNull();
+    }
+
+    @Test
+    void willThrowWhenQuerySortIsUnknown() {
+        //When
+        assertThatThrownBy(() -> underTest.queryCustomers(null, null, null, null, "email", null, null, null))
                 .isInstanceOf(RequestValidationException.class)
-                .hasMessage("no data changed found");
+                .hasMessage("sort must be id, name or age but was [email]");
+        //Then
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenQueryAgeRangeIsEmpty() {
+        //When
+        assertThatThrownBy(() -> underTest.queryCustomers(40, 30, null, null, null, null, null, null))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("age range must be non-negative with minAge not above maxAge");
         //Then
-        verify(customerDao, never()).updateCustomer(any());
+        verifyNoInteractions(customerDao);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package com.stefco.webapp.service;
+
+import com.stefco.webapp.dao.CustomerStatisticsDao;
+import com.stefco.webapp.dto.CustomerStatistics;
+import com.stefco.webapp.service.exception.RequestValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerStatisticsServiceTest {
+
+    @Mock
+    private CustomerStatisticsDao customerStatisticsDao;
+    private CustomerStatisticsService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerStatisticsService(customerStatisticsDao);
+    }
+
+    @Test
+    void statisticsAreDerivedFromTheAgeHistogram() {
+        //Given
+        Map<Integer, Long> histogram = new LinkedHashMap<>();
+        histogram.put(20, 3L);
+        histogram.put(30, 1L);
+        LocalDate from = LocalDate.of(2026, 9, 1);
+        LocalDate to = LocalDate.of(2026, 9, 30);
+        Map<LocalDate, Long> created = Map.of(LocalDate.of(2026, 9, 7), 4L);
+        when(customerStatisticsDao.selectAgeHistogram()).thenReturn(histogram);
+        when(customerStatisticsDao.selectCreatedCounts(CustomerStatisticsDao.Period.WEEK, from, to.plusDays(1)))
+                .thenReturn(created);
+        //When
+        CustomerStatistics actual = underTest.getStatistics("week", from, to);
+        //Then
+        assertThat(actual.getTotal()).isEqualTo(4);
+        assertThat(actual.getMinAge()).isEqualTo(20);
+        assertThat(actual.getMaxAge()).isEqualTo(30);
+        assertThat(actual.getAverageAge()).isEqualTo(22.5);
+        assertThat(actual.getAgeHistogram()).isEqualTo(histogram);
+        assertThat(actual.getCreatedPerPeriod()).isEqualTo(created);
+    }
+
+    @Test
+    void statisticsOfNoCustomersHaveNoAges() {
+        //Given
+        when(customerStatisticsDao.selectAgeHistogram()).thenReturn(Map.of());
+        //When
+        CustomerStatistics actual = underTest.getStatistics(null, null, null);
+        //Then
+        assertThat(actual.getTotal()).isZero();
+        assertThat(actual.getMinAge()).isNull();
+        assertThat(actual.getAverageAge()).isNull();
+        verify(customerStatisticsDao).selectCreatedCounts(eq(CustomerStatisticsDao.Period.DAY), any(), any());
+    }
+
+    @Test
+    void willThrowWhenPeriodIsUnknown() {
+        //When
+        assertThatThrownBy(() -> underTest.getStatistics("year", null, null))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("period must be day, week or month but was [year]");
+        //Then
+        verifyNoInteractions(customerStatisticsDao);
+    }
+
+    @Test
+    void willThrowWhenRangeIsReversed() {
+        //When
+        assertThatThrownBy(() -> underTest.getStatistics(null, LocalDate.of(2026, 10, 2), LocalDate.of(2026, 10, 1)))
+                .isInstanceOf(RequestValidationException.class);
+        //Then
+        verifyNoInteractions(customerStatisticsDao);
+    }
+}